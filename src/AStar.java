@@ -1,25 +1,15 @@
 import java.util.List;
-import java.util.Map;
-import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.PriorityQueue;
+import java.util.function.Supplier;
 
-interface HeuristicProblem<S, A> extends Problem<S, A> {
-    double estimate(S state); // optimistic estimate of cost from state to goal
-}
-
-// S = state type, A = action type
-interface Problem<S, A> {
-    S initialState();
-
-    List<A> actions(S state);
-
-    S result(S state, A action);
-
-    boolean isGoal(S state);
-
-    double cost(S state, A action);
-}
+import search.ActionBuffer;
+import search.BucketQueue;
+import search.ClosedSet;
+import search.HashClosedSet;
+import search.IntBucketQueue;
+import search.NodeArena;
+import search.StateCodec;
 
 class Tuple<S, A> {
     public S state;
@@ -32,33 +22,6 @@ class Tuple<S, A> {
     }
 }
 
-class Solution2<S, A> {
-    public List<A> actions; // series of actions from start state to goal state
-    public S goalState; // goal state that was reached
-    public double pathCost; // total cost from start state to goal
-
-    public Solution2(List<A> actions, S goalState, double pathCost) {
-        this.actions = actions;
-        this.goalState = goalState;
-        this.pathCost = pathCost;
-    }
-
-    // Return true if this is a valid solution to the given problem.
-    public boolean isValid(Problem<S, A> prob) {
-        S state = prob.initialState();
-        double cost = 0.0;
-
-        // Check that the actions actually lead from the problem's initial state to the
-        // goal.
-        for (A action : actions) {
-            cost += prob.cost(state, action);
-            state = prob.result(state, action);
-        }
-
-        return state.equals(goalState) && prob.isGoal(goalState) && pathCost == cost;
-    }
-}
-
 class Node<S> {
     public S state;
     public double cost;
@@ -72,29 +35,39 @@ class Node<S> {
 }
 
 class AStar<S, A> {
+    // Heuristic weights tried by searchAnytime, the last one gives an optimal solution
+    static final double[] ANYTIME_WEIGHTS = { 5.0, 3.0, 2.0, 1.5, 1.0 };
+
     public static <S, A> Solution2<S, A> search(HeuristicProblem<S, A> prob) {
+        return search(prob, new HashClosedSet<S>());
+    }
+
+    // 'visited' decides which states are duplicates, e.g. search.PackedClosedSet
+    public static <S, A> Solution2<S, A> search(HeuristicProblem<S, A> prob, ClosedSet<S> visited) {
         PriorityQueue<Tuple<S, A>> pq = new PriorityQueue<>();
-        Map<S, Double> visited = new HashMap<>();
+        ActionBuffer<A> actions = new ActionBuffer<>();
 
         pq.add(new Tuple<S, A>(prob.initialState(), null, 0.0, 0.0, null));
-        visited.put(prob.initialState(), 0.0);
+        visited.improve(prob.initialState(), 0.0);
 
         while (!pq.isEmpty()) {
             Tuple<S, A> curr = pq.poll();
 
-            if (visited.containsKey(curr.state) && visited.get(curr.state) < curr.pathCost)
+            if (visited.cost(curr.state) < curr.pathCost)
                 continue;
 
             if (prob.isGoal(curr.state))
                 return makePath(prob, curr);
 
-            for (A action : prob.actions(curr.state)) {
+            actions.clear();
+            prob.expand(curr.state, actions);
+            for (int i = 0; i < actions.size(); ++i) {
+                A action = actions.get(i);
                 S nextS = prob.result(curr.state, action);
                 double pathCost = curr.pathCost + prob.cost(curr.state, action);
                 double totalCost = pathCost + prob.estimate(nextS);
 
-                if (!visited.containsKey(nextS) || pathCost < visited.get(nextS)) {
-                    visited.put(nextS, pathCost);
+                if (visited.improve(nextS, pathCost)) {
                     pq.add(new Tuple<S, A>(nextS, action, pathCost, totalCost, curr));
                 }
             }
@@ -103,6 +76,193 @@ class AStar<S, A> {
         return null;
     }
 
+    // Same as search, but the frontier is a BucketQueue indexed by integer f, ties broken by lower h.
+    // An InPlaceProblem is expanded on its scratch state if 'visited' does not keep states.
+    public static <S, A> Solution2<S, A> searchInt(IntHeuristicProblem<S, A> prob, ClosedSet<S> visited) {
+        InPlaceProblem<S, A> inPlace = inPlace(prob, visited);
+        BucketQueue<Tuple<S, A>> pq = new BucketQueue<>();
+        ActionBuffer<A> actions = new ActionBuffer<>();
+
+        S initial = prob.initialState();
+        int initialEstimate = prob.intEstimate(initial);
+        pq.add(new Tuple<S, A>(initial, null, 0, initialEstimate, null), initialEstimate, initialEstimate);
+        visited.improve(initial, 0);
+
+        while (!pq.isEmpty()) {
+            Tuple<S, A> curr = pq.poll();
+
+            if (visited.cost(curr.state) < curr.pathCost)
+                continue;
+
+            if (prob.isGoal(curr.state))
+                return makePath(prob, curr);
+
+            int currCost = (int) curr.pathCost;
+            S scratch = inPlace == null ? null : inPlace.scratch(curr.state);
+            actions.clear();
+            prob.expand(curr.state, actions);
+            for (int i = 0; i < actions.size(); ++i) {
+                A action = actions.get(i);
+                int pathCost = currCost + prob.intCost(curr.state, action);
+                S nextS;
+                if (inPlace != null) {
+                    inPlace.apply(scratch, action);
+                    nextS = scratch;
+                } else {
+                    nextS = prob.result(curr.state, action);
+                }
+
+                if (visited.improve(nextS, pathCost)) {
+                    int estimate = prob.intEstimate(nextS);
+                    pq.add(new Tuple<S, A>(inPlace == null ? nextS : inPlace.copy(scratch), action, pathCost,
+                            pathCost + estimate, curr), pathCost + estimate, estimate);
+                }
+                if (inPlace != null)
+                    inPlace.undo(scratch, action);
+            }
+        }
+
+        return null;
+    }
+
+    // Same as searchInt, but the nodes live in a NodeArena instead of one Tuple each: the
+    // frontier holds node indices and a node keeps its state only as a 'codec' encoding,
+    // decoded again when the node is expanded. The decoded state must have the same actions
+    // as the original one, so e.g. a codec that normalizes the player position does not do.
+    // 'actionTable' lists all actions of the problem if they fit a byte each (see NodeArena),
+    // null otherwise.
+    public static <S, A> Solution2<S, A> searchArena(
+            IntHeuristicProblem<S, A> prob, StateCodec<S> codec, ClosedSet<S> visited, A[] actionTable) {
+        NodeArena<S, A> nodes = new NodeArena<>(codec, actionTable);
+        IntBucketQueue pq = new IntBucketQueue();
+        ActionBuffer<A> actions = new ActionBuffer<>();
+        InPlaceProblem<S, A> inPlace = inPlace(prob, visited);
+
+        S initial = prob.initialState();
+        int initialEstimate = prob.intEstimate(initial);
+        pq.add(nodes.add(initial, -1, null, 0, initialEstimate), initialEstimate, initialEstimate);
+        visited.improve(initial, 0);
+
+        while (!pq.isEmpty()) {
+            int curr = pq.poll();
+            S state = nodes.state(curr);
+            int currCost = nodes.g(curr);
+
+            if (visited.cost(state) < currCost)
+                continue;
+
+            if (prob.isGoal(state))
+                return new Solution2<S, A>(nodes.path(curr), state, currCost);
+
+            // children are only encoded into the arena, so the scratch state never has to be copied
+            S scratch = inPlace == null ? null : inPlace.scratch(state);
+            actions.clear();
+            prob.expand(state, actions);
+            for (int i = 0; i < actions.size(); ++i) {
+                A action = actions.get(i);
+                int pathCost = currCost + prob.intCost(state, action);
+                S nextS;
+                if (inPlace != null) {
+                    inPlace.apply(scratch, action);
+                    nextS = scratch;
+                } else {
+                    nextS = prob.result(state, action);
+                }
+
+                if (visited.improve(nextS, pathCost)) {
+                    int estimate = prob.intEstimate(nextS);
+                    pq.add(nodes.add(nextS, curr, action, pathCost, estimate), pathCost + estimate, estimate);
+                }
+                if (inPlace != null)
+                    inPlace.undo(scratch, action);
+            }
+        }
+
+        return null;
+    }
+
+    // Anytime search: repeated weighted A* (f = g + w * h) with weights decreasing towards 1; every
+    // round prunes nodes that cannot beat the best solution found so far. Returns the best solution
+    // found when the deadline (System.currentTimeMillis()) passes or the last round finishes.
+    public static <S, A> Solution2<S, A> searchAnytime(
+            IntHeuristicProblem<S, A> prob, Supplier<ClosedSet<S>> closedSets, long deadlineMillis) {
+        Tuple<S, A> best = null;
+
+        for (double weight : ANYTIME_WEIGHTS) {
+            int bound = best == null ? Integer.MAX_VALUE : (int) best.pathCost;
+            Tuple<S, A> goal = searchWeighted(prob, closedSets.get(), weight, bound, deadlineMillis);
+            if (goal != null)
+                best = goal;
+            if (System.currentTimeMillis() >= deadlineMillis)
+                break;
+        }
+
+        return best == null ? null : makePath(prob, best);
+    }
+
+    // Weighted A* that ignores anything with g + h >= bound; null if nothing better than bound
+    // was found before the deadline.
+    private static <S, A> Tuple<S, A> searchWeighted(
+            IntHeuristicProblem<S, A> prob, ClosedSet<S> visited, double weight, int bound, long deadlineMillis) {
+        BucketQueue<Tuple<S, A>> pq = new BucketQueue<>();
+        ActionBuffer<A> actions = new ActionBuffer<>();
+        InPlaceProblem<S, A> inPlace = inPlace(prob, visited);
+
+        S initial = prob.initialState();
+        int initialEstimate = prob.intEstimate(initial);
+        if (initialEstimate >= bound)
+            return null;
+        pq.add(new Tuple<S, A>(initial, null, 0, initialEstimate, null),
+                (int) Math.ceil(weight * initialEstimate), initialEstimate);
+        visited.improve(initial, 0);
+
+        int expanded = 0;
+        while (!pq.isEmpty()) {
+            Tuple<S, A> curr = pq.poll();
+
+            if (visited.cost(curr.state) < curr.pathCost || curr.totalCost >= bound)
+                continue;
+
+            if (prob.isGoal(curr.state))
+                return curr;
+
+            if ((++expanded & 1023) == 0 && System.currentTimeMillis() >= deadlineMillis)
+                return null;
+
+            int currCost = (int) curr.pathCost;
+            S scratch = inPlace == null ? null : inPlace.scratch(curr.state);
+            actions.clear();
+            prob.expand(curr.state, actions);
+            for (int i = 0; i < actions.size(); ++i) {
+                A action = actions.get(i);
+                int pathCost = currCost + prob.intCost(curr.state, action);
+                S nextS;
+                if (inPlace != null) {
+                    inPlace.apply(scratch, action);
+                    nextS = scratch;
+                } else {
+                    nextS = prob.result(curr.state, action);
+                }
+
+                if (visited.improve(nextS, pathCost)) {
+                    int estimate = prob.intEstimate(nextS);
+                    if (pathCost + estimate < bound)
+                        pq.add(new Tuple<S, A>(inPlace == null ? nextS : inPlace.copy(scratch), action, pathCost,
+                                pathCost + estimate, curr), pathCost + (int) Math.ceil(weight * estimate), estimate);
+                }
+                if (inPlace != null)
+                    inPlace.undo(scratch, action);
+            }
+        }
+
+        return null;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S, A> InPlaceProblem<S, A> inPlace(IntHeuristicProblem<S, A> prob, ClosedSet<S> visited) {
+        return prob instanceof InPlaceProblem && !visited.keepsStates() ? (InPlaceProblem<S, A>) prob : null;
+    }
+
     public static <S, A> Solution2<S, A> makePath(HeuristicProblem<S, A> prob, Tuple<S, A> curr) {
 
         Tuple<S, A> goal = curr;
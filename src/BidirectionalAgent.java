@@ -0,0 +1,295 @@
+import static java.lang.System.out;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import agents.actions.ActionsBFS;
+import game.actions.EDirection;
+import game.actions.compact.*;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.compact.PlayerNormalizer;
+import game.board.minimal.FloorIndex;
+import game.board.minimal.FloorState;
+import game.board.oop.EEntity;
+
+/**
+ * Meet-in-the-middle push search. A forward search pushes boxes from the initial position ({@link PushProblem} successors),
+ * a backward search pulls boxes away from the goals, starting with the boxes on the goals and the player in every region
+ * the goal configuration splits the level into. Both sides share one store keyed by boxes + normalized player position;
+ * once a side generates a state the other one already knows, the plan is the forward pushes to that state followed by
+ * the backward pulls replayed as pushes.
+ *
+ * Levels with a dedicated goal room often have a much smaller backward branching factor. The plan is not move-optimal,
+ * so with -optimal the agent falls back to {@link MyAgent}.
+ */
+public class BidirectionalAgent extends MyAgent {
+
+	private static class Node {
+		final boolean forward;
+		final Node parent;
+		BoardCompact board; // dropped once expanded
+
+		// forward: push that led here
+		final CWalkPush push;
+
+		// backward: pull that led here; box moved from [boxX, boxY] to [pullX, pullY] (player then stands at pull + dir)
+		final int pullX, pullY;
+		final EDirection pullDir;
+
+		Node(boolean forward, Node parent, BoardCompact board, CWalkPush push, int pullX, int pullY, EDirection pullDir) {
+			this.forward = forward;
+			this.parent = parent;
+			this.board = board;
+			this.push = push;
+			this.pullX = pullX;
+			this.pullY = pullY;
+			this.pullDir = pullDir;
+		}
+	}
+
+	private Map<FloorState, Node> store;
+	private PlayerNormalizer normalizer;
+	private PushProblem forwardProblem;
+	private Node meetForward, meetBackward;
+
+	private long deadline;
+	private boolean stopped;
+	private int[] stack; // of markRegion()
+
+	@Override
+	protected List<EDirection> think(BoardCompact board) {
+		if (optimal || !backwardAvailable(board)) return super.think(board);
+
+		searchedNodes = 0;
+		long searchStartMillis = System.currentTimeMillis();
+		analyzeLevel(board);
+		store = new HashMap<>();
+		normalizer = new PlayerNormalizer();
+		forwardProblem = new PushProblem();
+		meetForward = meetBackward = null;
+		deadline = searchDeadlineMillis();
+		stopped = false;
+		stack = new int[board.width() * board.height()];
+
+		List<Node> forwardLayer = new ArrayList<>();
+		List<Node> backwardLayer = new ArrayList<>();
+		add(new Node(true, null, board, null, -1, -1, null), forwardLayer);
+		for (BoardCompact goal : goalStates(board)) {
+			if (meetForward != null) break;
+			add(new Node(false, null, goal, null, -1, -1, null), backwardLayer);
+		}
+
+		// Expand whole layers, always on the side with the smaller frontier. Once the backward side has stored every
+		// state the goal can be pulled back to, the forward side goes on alone until it reaches one of them; a forward
+		// side that runs out means there is no solution.
+		while (meetForward == null && !forwardLayer.isEmpty()) {
+			if (stopped || (stopped = timeUp())) break;
+			if (backwardLayer.isEmpty() || forwardLayer.size() <= backwardLayer.size()) {
+				forwardLayer = expandForward(forwardLayer);
+			} else {
+				backwardLayer = expandBackward(backwardLayer);
+			}
+		}
+
+		List<EDirection> result = meetForward == null ? null : buildPlan();
+
+		long searchTime = System.currentTimeMillis() - searchStartMillis;
+		if (verbose) {
+			out.println("Nodes visited: " + searchedNodes + ", stored: " + store.size());
+			out.printf("Performance: %.1f nodes/sec\n",
+					((double) searchedNodes / (double) searchTime * 1000));
+		}
+
+		store = null;
+		return result;
+	}
+
+	/**
+	 * The backward search starts from "all boxes on goals", so it needs a goal for every box and boxes of one kind only;
+	 * the store needs a {@link FloorIndex}.
+	 */
+	private boolean backwardAvailable(BoardCompact board) {
+		int goals = 0;
+		for (int x = 0; x < board.width(); x++) {
+			for (int y = 0; y < board.height(); y++) {
+				int tile = board.tile(x, y);
+				if (CTile.forSomeBox(tile)) {
+					if (!CTile.forAnyBox(tile) && !CTile.forBox(1, tile)) return false;
+					++goals;
+				}
+				if (CTile.isSomeBox(tile) && !CTile.isBox(1, tile)) return false;
+			}
+		}
+		return goals == board.boxCount && FloorIndex.forBoard(board) != null;
+	}
+
+	/**
+	 * Boxes on all goals, the player in each of the regions this leaves free.
+	 */
+	private List<BoardCompact> goalStates(BoardCompact board) {
+		BoardCompact goal = board.clone();
+		for (int x = 0; x < goal.width(); x++) {
+			for (int y = 0; y < goal.height(); y++) {
+				int entity = CTile.forSomeBox(goal.tiles[x][y]) ? EEntity.BOX_1.getFlag() : EEntity.NONE.getFlag();
+				goal.tiles[x][y] = (goal.tiles[x][y] & EEntity.NULLIFY_ENTITY_FLAG) | entity;
+			}
+		}
+		goal.boxInPlaceCount = goal.boxCount;
+
+		// only the floor within the walls around the player, not the empty tiles outside the level
+		boolean[][] level = new boolean[board.width()][board.height()];
+		markRegion(board, board.playerX, board.playerY, level, true);
+
+		List<BoardCompact> result = new ArrayList<>();
+		boolean[][] covered = new boolean[goal.width()][goal.height()];
+		for (int x = 0; x < goal.width(); x++) {
+			for (int y = 0; y < goal.height(); y++) {
+				if (!level[x][y] || covered[x][y] || !CTile.isFree(goal.tile(x, y))) continue;
+				BoardCompact start = goal.clone();
+				start.tiles[x][y] = (start.tiles[x][y] & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.PLAYER.getFlag();
+				start.playerX = x;
+				start.playerY = y;
+				start.invalidateHash();
+				markRegion(start, x, y, covered, false);
+				result.add(start);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Marks the tiles the player can walk to from [x, y] in 'marked'; with 'throughBoxes' only walls stop it.
+	 */
+	private void markRegion(BoardCompact board, int x, int y, boolean[][] marked, boolean throughBoxes) {
+		int height = board.height();
+		int size = 0;
+		marked[x][y] = true;
+		stack[size++] = x * height + y;
+		while (size > 0) {
+			int cell = stack[--size];
+			x = cell / height;
+			y = cell % height;
+			for (EDirection dir : EDirection.arrows()) {
+				int nx = x + dir.dX, ny = y + dir.dY;
+				if (!inside(board, nx, ny) || marked[nx][ny]) continue;
+				int tile = board.tile(nx, ny);
+				if (throughBoxes ? CTile.isWall(tile) : !CTile.isWalkable(tile)) continue;
+				marked[nx][ny] = true;
+				stack[size++] = nx * height + ny;
+			}
+		}
+	}
+
+	/**
+	 * Whether the search has to give up: the thread was interrupted or the time for the level is running out. Checked
+	 * once every 1024 expanded nodes and before every layer.
+	 */
+	private boolean outOfTime() {
+		if ((searchedNodes & 1023) == 0) stopped |= timeUp();
+		return stopped;
+	}
+
+	private boolean timeUp() {
+		return Thread.currentThread().isInterrupted() || System.currentTimeMillis() >= deadline;
+	}
+
+	private static boolean inside(BoardCompact board, int x, int y) {
+		return x >= 0 && x < board.width() && y >= 0 && y < board.height();
+	}
+
+	/**
+	 * Stores 'node' unless its state is known; records the meeting point if the other side knows it.
+	 */
+	private void add(Node node, List<Node> layer) {
+		FloorState key = new FloorState(node.board, floorIndex, normalizer);
+		Node known = store.get(key);
+		if (known == null) {
+			store.put(key, node);
+			layer.add(node);
+		} else if (known.forward != node.forward) {
+			meetForward = node.forward ? node : known;
+			meetBackward = node.forward ? known : node;
+		}
+	}
+
+	private List<Node> expandForward(List<Node> layer) {
+		List<Node> next = new ArrayList<>();
+		for (Node node : layer) {
+			++searchedNodes;
+			if (outOfTime()) return next;
+			for (CWalkPush action : forwardProblem.actions(node.board)) {
+				add(new Node(true, node, forwardProblem.result(node.board, action), action, -1, -1, null), next);
+				if (meetForward != null) return next;
+			}
+			node.board = null;
+		}
+		return next;
+	}
+
+	private List<Node> expandBackward(List<Node> layer) {
+		List<Node> next = new ArrayList<>();
+		boolean[][] reachable = new boolean[board.width()][board.height()];
+		for (Node node : layer) {
+			++searchedNodes;
+			if (outOfTime()) return next;
+			BoardCompact state = node.board;
+			for (boolean[] column : reachable) Arrays.fill(column, false);
+			markRegion(state, state.playerX, state.playerY, reachable, false);
+
+			// player at P with a box at P - dir and free P + dir pulls the box to P and steps to P + dir
+			for (int x = 0; x < state.width(); x++) {
+				for (int y = 0; y < state.height(); y++) {
+					if (!reachable[x][y]) continue;
+					for (EDirection dir : EDirection.arrows()) {
+						if (!inside(state, x - dir.dX, y - dir.dY) || !inside(state, x + dir.dX, y + dir.dY)) continue;
+						if (!CTile.isSomeBox(state.tile(x - dir.dX, y - dir.dY))) continue;
+						if (!CTile.isWalkable(state.tile(x + dir.dX, y + dir.dY))) continue;
+						BoardCompact pulled = state.clone();
+						pulled.movePlayer(pulled.playerX, pulled.playerY, x + dir.dX, y + dir.dY);
+						pulled.moveBox(x - dir.dX, y - dir.dY, x, y);
+						add(new Node(false, node, pulled, null, x, y, dir), next);
+						if (meetForward != null) return next;
+					}
+				}
+			}
+			node.board = null;
+		}
+		return next;
+	}
+
+	private List<EDirection> buildPlan() {
+		List<CWalkPush> pushes = new ArrayList<>();
+		for (Node node = meetForward; node.parent != null; node = node.parent) {
+			pushes.add(0, node.push);
+		}
+
+		List<EDirection> result = new ArrayList<>();
+		BoardCompact replay = board.clone();
+		for (CWalkPush push : pushes) {
+			push.perform(replay);
+			for (EDirection dir : push.getDirections()) result.add(dir);
+		}
+
+		// Undo the pulls from the meeting point back to the goal: the player walks to pull + dir and pushes against dir
+		ActionsBFS actionsBFS = new ActionsBFS();
+		for (Node node = meetBackward; node.parent != null; node = node.parent) {
+			int fromX = node.pullX + node.pullDir.dX;
+			int fromY = node.pullY + node.pullDir.dY;
+			EDirection pushDir = node.pullDir.opposite();
+			CWalkPush found = null;
+			for (CWalkPush action : actionsBFS.findActions(replay)) {
+				if (action.getWalk().getX() == fromX && action.getWalk().getY() == fromY && action.getPushDirection() == pushDir) {
+					found = action;
+					break;
+				}
+			}
+			if (found == null) throw new RuntimeException("Cannot replay backward search pull at " + node.pullX + "," + node.pullY);
+			found.perform(replay);
+			for (EDirection dir : found.getDirections()) result.add(dir);
+		}
+		return result;
+	}
+}
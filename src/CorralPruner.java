@@ -0,0 +1,288 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import agents.actions.ActionsBits;
+import game.actions.EDirection;
+import game.actions.compact.CWalk;
+import game.actions.compact.CWalkPush;
+import game.board.bits.BoardBits;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.oop.EEntity;
+
+/**
+ * PI-corral pruning for push-level search.
+ *
+ * A corral is an area the player cannot reach, fenced by walls and barrier boxes. It is a PI-corral if no barrier box can
+ * be pushed anywhere but into the corral, now or after other boxes move (I), and the player can reach every square
+ * needed to push a barrier box into it (P). Unless the corral is already finished, something must eventually be pushed
+ * into it, and doing that first does not lose any solution; so the successors are restricted to the pushes into the
+ * PI-corral with the fewest of them.
+ *
+ * Before restricting, a bounded push search on the corral boxes alone (all other boxes removed) tries to open the corral or
+ * put its boxes on goals; if it provably cannot, the position is dead and no successors are returned.
+ *
+ * The reachable area, the corrals and their barrier boxes are row masks of a {@link BoardBits}, so only levels at most
+ * {@link BoardBits#MAX_WIDTH} wide are supported. Keeps reusable buffers, so use one instance per search thread.
+ */
+public class CorralPruner {
+	// States the corral deadlock search may visit before giving up
+	protected static final int DEADLOCK_SEARCH_LIMIT = 300;
+
+	// Cached deadlock search results before the cache is reset
+	private static final int CACHE_LIMIT = 100_000;
+
+	private final boolean[][] deadSquares;
+	private final int width, height;
+
+	private final BoardBits bits;        // the pruned state
+	private final long[] reach;          // where its player can walk
+	private final long[] rest;           // unreachable free tiles not yet in a corral
+	private final List<long[]> corrals = new ArrayList<>();  // corral areas, only the first labelCorrals() are valid
+	private final long[] barrier;        // boxes next to the corral being examined
+
+	private final BoardBits opened;      // a state of the corral deadlock search
+	private final long[] openedReach;
+
+	private final ActionsBits actionsBits;
+	private final Map<Layout, Boolean> deadlockCache = new HashMap<>();
+
+	/**
+	 * 'board' must fit a {@link BoardBits} (see {@link BoardBits#fits(BoardCompact)}).
+	 */
+	public CorralPruner(BoardCompact board, boolean[][] deadSquares) {
+		this.deadSquares = deadSquares;
+		width = board.width();
+		height = board.height();
+		bits = board.makeBoardBits();
+		reach = new long[height];
+		rest = new long[height];
+		barrier = new long[height];
+		opened = board.makeBoardBits();
+		openedReach = new long[height];
+		actionsBits = new ActionsBits(board);
+	}
+
+	/**
+	 * 'actions' are the legal pushes of 'state' (dead pushes already removed). Returns them unchanged if there is no
+	 * PI-corral, the pushes into the best PI-corral otherwise, or nothing if a corral is dead.
+	 */
+	public List<CWalkPush> prune(BoardCompact state, List<CWalkPush> actions) {
+		bits.setState(state);
+		bits.reachable(reach);
+		int count = labelCorrals();
+
+		List<CWalkPush> best = null;
+		for (int id = 0; id < count; id++) {
+			long[] corral = corrals.get(id);
+			List<CWalkPush> pushes = piCorralPushes(corral, actions);
+			if (pushes == null) continue;
+			if (isDeadCorral(state, corral)) return new ArrayList<>(0);
+			if (!pushes.isEmpty() && (best == null || pushes.size() < best.size())) best = pushes;
+		}
+		return best == null ? actions : best;
+	}
+
+	/**
+	 * Splits the free tiles the player cannot reach into connected areas, the first entries of {@link #corrals}; returns
+	 * their count.
+	 */
+	private int labelCorrals() {
+		bits.unreachable(reach, rest);
+		int count = 0;
+		for (int y = 0; y < height; y++) {
+			while (rest[y] != 0) {
+				if (count == corrals.size()) corrals.add(new long[height]);
+				long[] corral = corrals.get(count++);
+				Arrays.fill(corral, 0);
+				corral[y] = Long.lowestOneBit(rest[y]);
+				bits.fill(corral, rest);
+				for (int row = y; row < height; row++) {
+					rest[row] &= ~corral[row];
+				}
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Pushes into 'corral' if it is an unfinished PI-corral, null otherwise.
+	 */
+	private List<CWalkPush> piCorralPushes(long[] corral, List<CWalkPush> actions) {
+		// Finished: every barrier box on a goal and no goal inside
+		boolean finished = true;
+		for (int y = 0; y < height; y++) {
+			long around = corral[y] << 1 | corral[y] >>> 1;
+			if (y > 0) around |= corral[y - 1];
+			if (y < height - 1) around |= corral[y + 1];
+			barrier[y] = bits.boxes[y] & around;
+			if ((corral[y] & bits.goals[y]) != 0 || (barrier[y] & ~bits.goals[y]) != 0) finished = false;
+		}
+		if (finished) return null;
+
+		// I: no barrier box can ever be pushed anywhere but into the corral, at least not before the corral changes;
+		// P: the player can get behind every barrier box for each push into the corral
+		for (int y = 0; y < height; y++) {
+			for (long row = barrier[y]; row != 0; row &= row - 1) {
+				int x = Long.numberOfTrailingZeros(row);
+				for (EDirection dir : EDirection.arrows()) {
+					int tx = x + dir.dX, ty = y + dir.dY;
+					int px = x - dir.dX, py = y - dir.dY;
+					if (!inside(tx, ty) || !inside(px, py)) continue;
+					if (bits.isWall(tx, ty) || bits.isWall(px, py)) continue;
+					if (isSet(corral, px, py)) continue;
+					if (isSet(corral, tx, ty)) {
+						if (!isSet(reach, px, py)) return null;
+					} else if (!deadSquares[tx][ty]) {
+						return null;
+					}
+				}
+			}
+		}
+
+		List<CWalkPush> pushes = new ArrayList<>();
+		for (CWalkPush action : actions) {
+			CWalk walk = action.getWalk();
+			EDirection dir = action.getPushDirection();
+			int boxX = walk.getX() + dir.dX, boxY = walk.getY() + dir.dY;
+			if (isSet(barrier, boxX, boxY)) pushes.add(action);
+		}
+		return pushes;
+	}
+
+	/**
+	 * Bounded search on a board holding only the barrier boxes of 'corral' (in {@link #barrier}): the corral is dead if no
+	 * sequence of pushes lets the player into it or gets all those boxes on goals. Other boxes only get in the way, so
+	 * leaving them out keeps the proof valid.
+	 */
+	private boolean isDeadCorral(BoardCompact state, long[] corral) {
+		BoardCompact corralBoard = new BoardCompact(width, height);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int tile = state.tile(x, y);
+				if (CTile.isSomeBox(tile) && !isSet(barrier, x, y)) {
+					tile = (tile & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.NONE.getFlag();
+				}
+				corralBoard.tiles[x][y] = tile;
+				if (CTile.isSomeBox(tile)) {
+					++corralBoard.boxCount;
+					if (isOnGoal(tile)) ++corralBoard.boxInPlaceCount;
+				}
+			}
+		}
+		corralBoard.playerX = state.playerX;
+		corralBoard.playerY = state.playerY;
+		if (corralBoard.isVictory()) return false;
+
+		// The same boxes may fence several corrals
+		Layout key = layout(corralBoard, firstCell(corral));
+		Boolean cached = deadlockCache.get(key);
+		if (cached != null) return cached;
+
+		boolean dead = searchCorral(corralBoard, corral);
+		if (deadlockCache.size() >= CACHE_LIMIT) deadlockCache.clear();
+		deadlockCache.put(key, dead);
+		return dead;
+	}
+
+	private boolean searchCorral(BoardCompact start, long[] corral) {
+		Set<Layout> visited = new HashSet<>();
+		ArrayDeque<BoardCompact> open = new ArrayDeque<>();
+		visited.add(layout(start, -1));
+		open.add(start);
+
+		while (!open.isEmpty()) {
+			if (visited.size() > DEADLOCK_SEARCH_LIMIT) return false;
+			BoardCompact current = open.poll();
+			for (CWalkPush action : actionsBits.findActions(current)) {
+				CWalk walk = action.getWalk();
+				EDirection dir = action.getPushDirection();
+				if (deadSquares[walk.getX() + 2 * dir.dX][walk.getY() + 2 * dir.dY]) continue;
+
+				BoardCompact next = current.clone();
+				action.perform(next);
+				if (next.isVictory()) return false;
+				Layout layout = layout(next, -1);
+				for (int y = 0; y < height; y++) {
+					if ((openedReach[y] & corral[y]) != 0) return false;
+				}
+				if (visited.add(layout)) open.add(next);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Exact key of 'board' for the deadlock search and its cache, see {@link Layout}; leaves the player reach of 'board'
+	 * in {@link #openedReach}.
+	 */
+	private Layout layout(BoardCompact board, int cell) {
+		opened.setState(board);
+		opened.reachable(openedReach);
+		// the top-left tile the player can walk to stands for the whole reachable area
+		int player = 0;
+		for (int y = 0; y < height; y++) {
+			if (openedReach[y] != 0) {
+				player = Long.numberOfTrailingZeros(openedReach[y]) * height + y;
+				break;
+			}
+		}
+		return new Layout(opened.boxes.clone(), player, cell);
+	}
+
+	/**
+	 * Boxes, normalized player tile and the corral asked about (one of its tiles, -1 within the search) compared in full:
+	 * with a hash alone a collision could pass a dead verdict on to a solvable corral and prune all its successors.
+	 */
+	private static final class Layout {
+		private final long[] boxes;
+		private final int player, cell;
+		private final int hash;
+
+		Layout(long[] boxes, int player, int cell) {
+			this.boxes = boxes;
+			this.player = player;
+			this.cell = cell;
+			this.hash = (Arrays.hashCode(boxes) * 31 + player) * 31 + cell;
+		}
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj) return true;
+			if (!(obj instanceof Layout)) return false;
+			Layout other = (Layout) obj;
+			return hash == other.hash && player == other.player && cell == other.cell && Arrays.equals(boxes, other.boxes);
+		}
+	}
+
+	private static boolean isSet(long[] rows, int x, int y) {
+		return (rows[y] >>> x & 1) != 0;
+	}
+
+	// x * height + y of some tile of 'area'
+	private int firstCell(long[] area) {
+		int y = 0;
+		while (area[y] == 0) y++;
+		return Long.numberOfTrailingZeros(area[y]) * height + y;
+	}
+
+	private static boolean isOnGoal(int tile) {
+		int boxNum = CTile.getBoxNum(tile);
+		return CTile.forBox(boxNum, tile) || CTile.forAnyBox(tile);
+	}
+
+	private boolean inside(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+}
@@ -0,0 +1,155 @@
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.oop.EEntity;
+
+/**
+ * Database of dead box / wall layouts of a small window, produced by {@link DeadlockPatternGenerator}.
+ *
+ * File format (big endian ints): magic, version, window width, window height, table capacity (power of two), followed
+ * by an open-addressing hash table of 'capacity' int keys (0 = empty slot). A key is the window's wall bitmask << 16 |
+ * its box bitmask, cell [x, y] of the window being bit x * height + y. The file is memory-mapped and queried in place.
+ *
+ * A window that contains a goal is never reported: its boxes may stay inside on that goal.
+ */
+public class DeadlockPatterns {
+    public static final String DEFAULT_FILE = "deadlocks-3x3.bin";
+
+    static final int MAGIC = 0x534B4450; // "SKDP"
+    static final int VERSION = 2;  // 2: home slots from the top hash bits
+    static final int HEADER_BYTES = 5 * 4;
+
+    private static DeadlockPatterns instance;
+
+    private final ByteBuffer table;
+    private final int width, height;
+    private final int mask;
+
+    // The board as it is after the examined push
+    private BoardCompact board;
+    private int fromX, fromY, toX, toY;
+
+    DeadlockPatterns(ByteBuffer buffer) {
+        if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IllegalArgumentException("not a deadlock pattern database");
+        }
+        width = buffer.getInt(8);
+        height = buffer.getInt(12);
+        mask = buffer.getInt(16) - 1;
+        table = buffer;
+    }
+
+    /**
+     * Memory-maps a database file.
+     */
+    public static DeadlockPatterns load(File file) throws IOException {
+        try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+            return new DeadlockPatterns(input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length()));
+        }
+    }
+
+    /**
+     * The database shared by all agents: {@link #DEFAULT_FILE} (or the file named by the "sokoban.deadlocks" system
+     * property) if it exists, otherwise a 3x3 database generated in memory.
+     */
+    public static synchronized DeadlockPatterns getDefault() {
+        if (instance == null) {
+            File file = new File(System.getProperty("sokoban.deadlocks", DEFAULT_FILE));
+            try {
+                if (file.exists()) instance = load(file);
+            } catch (IOException | IllegalArgumentException e) {
+                System.err.println("Cannot load deadlock patterns from " + file + ": " + e.getMessage());
+            }
+            if (instance == null) instance = new DeadlockPatterns(DeadlockPatternGenerator.generate(3, 3));
+        }
+        return instance;
+    }
+
+    /**
+     * A view for one search thread; the table is shared, the examined push is not.
+     */
+    public DeadlockPatterns view() {
+        return new DeadlockPatterns(table);
+    }
+
+    static int key(int walls, int boxes) {
+        return walls << 16 | boxes;
+    }
+
+    // Home slot of 'key': the top log2(capacity) bits of the multiplicative hash, so the keys spread over the whole
+    // table however large it is; the generator places keys with the same function
+    static int slot(int key, int capacity) {
+        return (key * 0x9E3779B9) >>> (32 - Integer.numberOfTrailingZeros(capacity));
+    }
+
+    public boolean contains(int walls, int boxes) {
+        int key = key(walls, boxes);
+        for (int slot = slot(key, mask + 1);; slot = (slot + 1) & mask) {
+            int stored = table.getInt(HEADER_BYTES + 4 * slot);
+            if (stored == key) return true;
+            if (stored == 0) return false;
+        }
+    }
+
+    public int size() {
+        int count = 0;
+        for (int slot = 0; slot <= mask; slot++) {
+            if (table.getInt(HEADER_BYTES + 4 * slot) != 0) ++count;
+        }
+        return count;
+    }
+
+    /**
+     * Whether pushing the box at [boxX, boxY] to [boxX + dX, boxY + dY] creates a dead pattern in any window around it.
+     */
+    public boolean isDeadlock(BoardCompact board, int boxX, int boxY, int dX, int dY) {
+        this.board = board;
+        fromX = boxX;
+        fromY = boxY;
+        toX = boxX + dX;
+        toY = boxY + dY;
+
+        boolean dead = false;
+        for (int left = toX - width + 1; left <= toX && !dead; left++) {
+            for (int top = toY - height + 1; top <= toY && !dead; top++) {
+                dead = isDeadWindow(left, top);
+            }
+        }
+        this.board = null;
+        return dead;
+    }
+
+    private boolean isDeadWindow(int left, int top) {
+        int walls = 0, boxes = 0;
+        for (int x = 0; x < width; x++) {
+            for (int y = 0; y < height; y++) {
+                int bit = 1 << (x * height + y);
+                int bx = left + x, by = top + y;
+                if (bx < 0 || bx >= board.width() || by < 0 || by >= board.height()) {
+                    walls |= bit;
+                    continue;
+                }
+                int tile = tile(bx, by);
+                if (CTile.forSomeBox(tile)) return false;
+                if (CTile.isWall(tile)) walls |= bit;
+                else if (CTile.isSomeBox(tile)) boxes |= bit;
+            }
+        }
+        return boxes != 0 && contains(walls, boxes);
+    }
+
+    private int tile(int x, int y) {
+        if (x == toX && y == toY) {
+            return (board.tile(x, y) & EEntity.NULLIFY_ENTITY_FLAG) | (board.tile(fromX, fromY) & EEntity.SOME_ENTITY_FLAG);
+        }
+        if (x == fromX && y == fromY) {
+            return (board.tile(x, y) & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.NONE.getFlag();
+        }
+        return board.tile(x, y);
+    }
+}
@@ -0,0 +1,164 @@
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.minimal.StateMinimal;
+import search.MinCostMatching;
+
+/**
+ * {@link BoardCompact} that carries its box / goal matching estimate (see {@link PushDistances}) along. Clones share the
+ * matching of their parent and a box move repairs only the row of the moved box, so evaluating a child costs O(goals^2)
+ * instead of a board scan plus a full matching.
+ *
+ * The row is repaired only when the estimate is asked for, and not at all if the box is moved back first, so a scratch
+ * board (see {@link #copyFrom(BoardCompact)}) can try and take back pushes without allocating.
+ */
+public class EstimatedBoard extends BoardCompact {
+	private final PushDistances distances;
+
+	// Box cells (x * height + y), index = matching row; both null until first needed or after a bulk change
+	private int[] boxCells;
+	private MinCostMatching.Solution matching;
+	// Row of 'matching' whose box moved since the row was computed, -1 if none; 'staleCell' is where the box was then
+	private int staleRow = -1;
+	private int staleCell;
+	// 'boxCells' may be shared with a clone and has to be copied before a write
+	private boolean sharedCells;
+
+	public EstimatedBoard(BoardCompact board, PushDistances distances) {
+		super(board);
+		this.distances = distances;
+	}
+
+	private EstimatedBoard(EstimatedBoard other) {
+		super(other);
+		distances = other.distances;
+		boxCells = other.boxCells;
+		matching = other.matching;
+		staleRow = other.staleRow;
+		staleCell = other.staleCell;
+		sharedCells = other.sharedCells = true;
+	}
+
+	@Override
+	public EstimatedBoard clone() {
+		return new EstimatedBoard(this);
+	}
+
+	@Override
+	public void copyFrom(BoardCompact other) {
+		super.copyFrom(other);
+		if (!(other instanceof EstimatedBoard) || ((EstimatedBoard) other).matching == null) {
+			matching = null;
+			staleRow = -1;
+			return;
+		}
+		EstimatedBoard source = (EstimatedBoard) other;
+		if (!sharedCells && boxCells != null && boxCells.length == source.boxCells.length) {
+			System.arraycopy(source.boxCells, 0, boxCells, 0, boxCells.length);
+		} else {
+			boxCells = source.boxCells;
+			sharedCells = source.sharedCells = true;
+		}
+		matching = source.matching;
+		staleRow = source.staleRow;
+		staleCell = source.staleCell;
+	}
+
+	/**
+	 * Cost of the cheapest assignment of boxes to distinct goals.
+	 */
+	public int estimate() {
+		if (matching == null) {
+			boxCells = new int[boxCount];
+			sharedCells = false;
+			matching = match(this, distances, boxCells);
+			staleRow = -1;
+		} else if (staleRow >= 0) {
+			repairStaleRow();
+		}
+		return matching.cost;
+	}
+
+	/**
+	 * Full evaluation for a board that does not carry its estimate.
+	 */
+	public static int estimate(BoardCompact board, PushDistances distances) {
+		return match(board, distances, new int[board.boxCount]).cost;
+	}
+
+	@Override
+	public void moveBox(int sourceTileX, int sourceTileY, int targetTileX, int targetTileY) {
+		super.moveBox(sourceTileX, sourceTileY, targetTileX, targetTileY);
+		if (matching == null) return;
+
+		int source = sourceTileX * height() + sourceTileY;
+		int target = targetTileX * height() + targetTileY;
+		int box = 0;
+		while (boxCells[box] != source) ++box;
+		if (staleRow >= 0 && staleRow != box) repairStaleRow();
+		if (sharedCells) {
+			boxCells = boxCells.clone();
+			sharedCells = false;
+		}
+		boxCells[box] = target;
+		if (staleRow < 0) {
+			staleRow = box;
+			staleCell = source;
+		} else if (target == staleCell) {
+			staleRow = -1;
+		}
+	}
+
+	private void repairStaleRow() {
+		int cell = boxCells[staleRow];
+		int x = cell / height(), y = cell % height();
+		matching = matching.withRow(staleRow, costs(distances, CTile.getBoxNum(tile(x, y)), x, y));
+		staleRow = -1;
+	}
+
+	@Override
+	public void setState(StateMinimal state) {
+		super.setState(state);
+		matching = null;
+		staleRow = -1;
+	}
+
+	@Override
+	public void unsetState(StateMinimal state) {
+		super.unsetState(state);
+		matching = null;
+		staleRow = -1;
+	}
+
+	@Override
+	public void invalidateHash() {
+		super.invalidateHash();
+		matching = null;
+		staleRow = -1;
+	}
+
+	private static MinCostMatching.Solution match(BoardCompact board, PushDistances distances, int[] boxCells) {
+		int[][] costs = new int[board.boxCount][];
+		int boxes = 0;
+		for (int x = 0; x < board.width(); x++) {
+			for (int y = 0; y < board.height(); y++) {
+				int tile = board.tile(x, y);
+				if (!CTile.isSomeBox(tile)) continue;
+				boxCells[boxes] = x * board.height() + y;
+				costs[boxes++] = costs(distances, CTile.getBoxNum(tile), x, y);
+			}
+		}
+		return MinCostMatching.solve(costs, distances.goalCount());
+	}
+
+	/**
+	 * Matching row of a box: push distance to every goal, {@link MyAgent#DEAD_BOX_COST} where the goal is out of reach.
+	 */
+	private static int[] costs(PushDistances distances, int boxNum, int x, int y) {
+		int[] row = new int[distances.goalCount()];
+		for (int goal = 0; goal < row.length; goal++) {
+			int distance = distances.distance(goal, boxNum, x, y);
+			row[goal] = distance == PushDistances.UNREACHABLE ? MyAgent.DEAD_BOX_COST : distance;
+		}
+		return row;
+	}
+}
@@ -0,0 +1,456 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+
+import search.StateCodec;
+
+// External-memory A* with delayed duplicate detection. Frontier and closed set are files of
+// fixed-size records sorted by state encoding: the encoding, g, f and the parent's encoding.
+// Only the buffer of freshly generated records and a few I/O buffers are kept in memory.
+//
+// Nodes are grouped into (f, g) buckets, expanded by increasing f, then g. Action costs are
+// positive, so all children of a bucket land in later buckets and a bucket is complete when
+// its turn comes. Its runs are then merged, duplicates within the bucket and against the
+// closed runs are dropped in the same pass, and the survivors are expanded and written out
+// as a new closed run. Like AStar.searchInt's closed set, the first (f, g) a state is
+// expanded with is final, which is optimal for consistent estimates; f is made monotone
+// along paths (pathmax). The plan is rebuilt from the parent encodings and replayed forward.
+class ExternalAStar<S, A, P extends IntHeuristicProblem<S, A> & StateCodec<S>> {
+    // Records buffered before they are sorted and written out as runs
+    static final int DEFAULT_BUFFER_RECORDS = 1 << 18;
+
+    // Closed runs are merged into one once there are more of them
+    static final int MAX_CLOSED_RUNS = 16;
+
+    private static final int IO_BUFFER_BYTES = 1 << 16;
+
+    // Searches with run files in a fresh temporary directory
+    public static <S, A, P extends IntHeuristicProblem<S, A> & StateCodec<S>> Solution2<S, A> search(P prob) {
+        return search(prob, null, DEFAULT_BUFFER_RECORDS, Long.MAX_VALUE);
+    }
+
+    // 'directory' (null = temporary) receives the run files, which are deleted when the search ends;
+    // 'bufferRecords' bounds the generated records kept in memory. Null if there is no solution, the
+    // thread was interrupted or the deadline (System.currentTimeMillis()) passed.
+    public static <S, A, P extends IntHeuristicProblem<S, A> & StateCodec<S>> Solution2<S, A> search(
+            P prob, Path directory, int bufferRecords, long deadlineMillis) {
+        boolean temporary = directory == null;
+        ExternalAStar<S, A, P> search = null;
+        try {
+            if (temporary)
+                directory = Files.createTempDirectory("external-astar");
+            search = new ExternalAStar<S, A, P>(prob, directory, bufferRecords, deadlineMillis);
+            return search.run();
+        } catch (ClosedByInterruptException e) {
+            return null;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            try {
+                if (search != null)
+                    search.deleteRuns();
+                if (temporary && directory != null)
+                    Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                // leftovers in the temporary directory
+            }
+        }
+    }
+
+    private final P prob;
+    private final Path directory;
+    private final int length;  // ints of a state encoding
+    private final int stride;  // ints of a record: encoding, g, f, parent's encoding
+    private final long deadlineMillis;
+
+    private final int[] buffer;
+    private int buffered;
+    private long bufferedMin = Long.MAX_VALUE;  // least bucket key in the buffer
+
+    private final TreeMap<Long, List<Path>> open = new TreeMap<>();  // bucket key -> sorted runs
+    private final List<Path> closed = new ArrayList<>();
+    private int files;
+
+    private ExternalAStar(P prob, Path directory, int bufferRecords, long deadlineMillis) {
+        this.prob = prob;
+        this.deadlineMillis = deadlineMillis;
+        this.directory = directory;
+        this.length = prob.length();
+        this.stride = 2 * length + 2;
+        this.buffer = new int[bufferRecords * stride];
+    }
+
+    private boolean stopped() {
+        return Thread.currentThread().isInterrupted() || System.currentTimeMillis() >= deadlineMillis;
+    }
+
+    private static long key(int f, int g) {
+        return (long) f << 32 | g;
+    }
+
+    private Solution2<S, A> run() throws IOException {
+        S initial = prob.initialState();
+        int[] root = new int[stride];
+        prob.encode(initial, root, 0);
+        root[length] = 0;
+        root[length + 1] = prob.intEstimate(initial);
+        System.arraycopy(root, 0, root, length + 2, length);
+        add(root, 0);
+
+        while (true) {
+            if (buffered > 0 && (open.isEmpty() || bufferedMin <= open.firstKey()))
+                flush();
+            if (open.isEmpty() || stopped())
+                return null;
+
+            int[] goal = expandBucket(open.pollFirstEntry().getValue());
+            if (goal != null)
+                return makePath(goal);
+            if (closed.size() > MAX_CLOSED_RUNS)
+                compactClosed();
+        }
+    }
+
+    // Merges the runs of a bucket, drops duplicates and expands the rest, which becomes a closed
+    // run. Returns the goal record if one was reached.
+    private int[] expandBucket(List<Path> runs) throws IOException {
+        PriorityQueue<RunReader> merge = new PriorityQueue<>((a, b) -> compare(a.record, 0, b.record, 0));
+        List<RunReader> closedReaders = new ArrayList<>();
+        Path layer = newFile("closed");
+        RunWriter out = new RunWriter(layer);
+        int[] goal = null;
+        try {
+            for (Path run : runs) {
+                RunReader reader = new RunReader(run);
+                if (reader.next())
+                    merge.add(reader);
+                else
+                    reader.close();
+            }
+            for (Path run : closed) {
+                RunReader reader = new RunReader(run);
+                reader.next();
+                closedReaders.add(reader);
+            }
+
+            int[] current = new int[stride];
+            boolean first = true;
+            while (!merge.isEmpty() && goal == null) {
+                RunReader reader = merge.poll();
+                boolean duplicate = !first && compare(reader.record, 0, current, 0) == 0;
+                System.arraycopy(reader.record, 0, current, 0, stride);
+                first = false;
+                if (reader.next())
+                    merge.add(reader);
+                else
+                    reader.close();
+
+                if (duplicate || isClosed(closedReaders, current))
+                    continue;
+                out.write(current, 0);
+
+                S state = prob.decode(current, 0);
+                if (prob.isGoal(state))
+                    goal = current.clone();
+                else
+                    expand(state, current);
+                if (stopped())
+                    return null;
+            }
+        } finally {
+            for (RunReader reader : merge)
+                reader.close();
+            for (RunReader reader : closedReaders)
+                reader.close();
+            out.close();
+            closed.add(layer);
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+        }
+        return goal;
+    }
+
+    // Closed runs are read along with the bucket, so each of them is scanned once per bucket
+    private boolean isClosed(List<RunReader> closedReaders, int[] record) throws IOException {
+        for (RunReader reader : closedReaders) {
+            while (reader.valid && compare(reader.record, 0, record, 0) < 0)
+                reader.next();
+            if (reader.valid && compare(reader.record, 0, record, 0) == 0)
+                return true;
+        }
+        return false;
+    }
+
+    private void expand(S state, int[] record) throws IOException {
+        int g = record[length];
+        int f = record[length + 1];
+        for (A action : prob.actions(state)) {
+            S next = prob.result(state, action);
+            int childG = g + prob.intCost(state, action);
+            int childF = Math.max(f, childG + prob.intEstimate(next));
+
+            int base = buffered * stride;
+            prob.encode(next, buffer, base);
+            buffer[base + length] = childG;
+            buffer[base + length + 1] = childF;
+            System.arraycopy(record, 0, buffer, base + length + 2, length);
+            commit();
+        }
+    }
+
+    private void add(int[] record, int offset) throws IOException {
+        System.arraycopy(record, offset, buffer, buffered * stride, stride);
+        commit();
+    }
+
+    private void commit() throws IOException {
+        int base = buffered * stride;
+        bufferedMin = Math.min(bufferedMin, key(buffer[base + length + 1], buffer[base + length]));
+        if (++buffered * stride == buffer.length)
+            flush();
+    }
+
+    // Sorts the buffer by bucket and encoding and writes one run per bucket
+    private void flush() throws IOException {
+        int[] order = new int[buffered];
+        for (int i = 0; i < buffered; ++i)
+            order[i] = i;
+        sort(order, new int[buffered], 0, buffered);
+
+        RunWriter out = null;
+        long current = -1;
+        int previous = -1;
+        try {
+            for (int i : order) {
+                int base = i * stride;
+                long key = key(buffer[base + length + 1], buffer[base + length]);
+                if (out == null || key != current) {
+                    if (out != null)
+                        out.close();
+                    Path run = newFile("open");
+                    open.computeIfAbsent(key, k -> new ArrayList<>()).add(run);
+                    out = new RunWriter(run);
+                    current = key;
+                } else if (compare(buffer, base, buffer, previous * stride) == 0) {
+                    continue;  // same state, same bucket
+                }
+                out.write(buffer, base);
+                previous = i;
+            }
+        } finally {
+            if (out != null)
+                out.close();
+        }
+        buffered = 0;
+        bufferedMin = Long.MAX_VALUE;
+    }
+
+    // Merge sort of buffer record indices by f, g, encoding
+    private void sort(int[] order, int[] temp, int from, int to) {
+        if (to - from < 2)
+            return;
+        int middle = (from + to) >>> 1;
+        sort(order, temp, from, middle);
+        sort(order, temp, middle, to);
+        int i = from, j = middle, k = from;
+        while (i < middle && j < to)
+            temp[k++] = compareBuffered(order[j], order[i]) < 0 ? order[j++] : order[i++];
+        while (i < middle)
+            temp[k++] = order[i++];
+        while (j < to)
+            temp[k++] = order[j++];
+        System.arraycopy(temp, from, order, from, to - from);
+    }
+
+    private int compareBuffered(int a, int b) {
+        int baseA = a * stride, baseB = b * stride;
+        int c = Integer.compare(buffer[baseA + length + 1], buffer[baseB + length + 1]);
+        if (c == 0)
+            c = Integer.compare(buffer[baseA + length], buffer[baseB + length]);
+        return c != 0 ? c : compare(buffer, baseA, buffer, baseB);
+    }
+
+    // Orders records by encoding
+    private int compare(int[] a, int offsetA, int[] b, int offsetB) {
+        for (int i = 0; i < length; ++i) {
+            int c = Integer.compare(a[offsetA + i], b[offsetB + i]);
+            if (c != 0)
+                return c;
+        }
+        return 0;
+    }
+
+    // Closed runs hold distinct states, merging them is a plain k-way merge
+    private void compactClosed() throws IOException {
+        PriorityQueue<RunReader> merge = new PriorityQueue<>((a, b) -> compare(a.record, 0, b.record, 0));
+        Path merged = newFile("closed");
+        try (RunWriter out = new RunWriter(merged)) {
+            for (Path run : closed) {
+                RunReader reader = new RunReader(run);
+                if (reader.next())
+                    merge.add(reader);
+                else
+                    reader.close();
+            }
+            while (!merge.isEmpty()) {
+                RunReader reader = merge.poll();
+                out.write(reader.record, 0);
+                if (reader.next())
+                    merge.add(reader);
+                else
+                    reader.close();
+            }
+        } finally {
+            for (RunReader reader : merge)
+                reader.close();
+        }
+        for (Path run : closed)
+            Files.deleteIfExists(run);
+        closed.clear();
+        closed.add(merged);
+    }
+
+    private Solution2<S, A> makePath(int[] goal) throws IOException {
+        // Encodings from the root to the goal; only the root has g = 0
+        LinkedList<int[]> chain = new LinkedList<>();
+        int[] record = goal;
+        while (record[length] != 0) {
+            chain.addFirst(Arrays.copyOf(record, length));
+            record = findClosed(record, length + 2);
+            if (record == null)
+                throw new IllegalStateException("parent of a closed state not found");
+        }
+
+        S state = prob.initialState();
+        List<A> actions = new LinkedList<>();
+        int[] code = new int[length];
+        for (int[] target : chain) {
+            A found = null;
+            for (A action : prob.actions(state)) {
+                S next = prob.result(state, action);
+                prob.encode(next, code, 0);
+                if (compare(code, 0, target, 0) == 0) {
+                    found = action;
+                    state = next;
+                    break;
+                }
+            }
+            if (found == null)
+                throw new IllegalStateException("plan cannot be replayed");
+            actions.add(found);
+        }
+        return new Solution2<S, A>(actions, state, goal[length]);
+    }
+
+    // Binary search of the closed runs for the record of the encoding at key[offset..]
+    private int[] findClosed(int[] key, int offset) throws IOException {
+        int[] record = new int[stride];
+        ByteBuffer bytes = ByteBuffer.allocate(stride * 4);
+        for (Path run : closed) {
+            try (FileChannel channel = FileChannel.open(run, StandardOpenOption.READ)) {
+                long low = 0, high = channel.size() / bytes.capacity() - 1;
+                while (low <= high) {
+                    long middle = (low + high) >>> 1;
+                    bytes.clear();
+                    while (bytes.hasRemaining() && channel.read(bytes, middle * bytes.capacity() + bytes.position()) >= 0);
+                    bytes.flip();
+                    for (int i = 0; i < stride; ++i)
+                        record[i] = bytes.getInt();
+                    int c = compare(record, 0, key, offset);
+                    if (c == 0)
+                        return record;
+                    if (c < 0)
+                        low = middle + 1;
+                    else
+                        high = middle - 1;
+                }
+            }
+        }
+        return null;
+    }
+
+    private Path newFile(String kind) {
+        return directory.resolve(kind + "-" + (files++) + ".run");
+    }
+
+    private void deleteRuns() throws IOException {
+        for (List<Path> runs : open.values())
+            for (Path run : runs)
+                Files.deleteIfExists(run);
+        for (Path run : closed)
+            Files.deleteIfExists(run);
+    }
+
+    private class RunWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocate(Math.max(IO_BUFFER_BYTES, stride * 4));
+
+        RunWriter(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+        }
+
+        void write(int[] src, int offset) throws IOException {
+            if (bytes.remaining() < stride * 4)
+                drain();
+            for (int i = 0; i < stride; ++i)
+                bytes.putInt(src[offset + i]);
+        }
+
+        private void drain() throws IOException {
+            bytes.flip();
+            while (bytes.hasRemaining())
+                channel.write(bytes);
+            bytes.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel.isOpen()) {
+                drain();
+                channel.close();
+            }
+        }
+    }
+
+    private class RunReader {
+        private final FileChannel channel;
+        private final ByteBuffer bytes = ByteBuffer.allocate(Math.max(IO_BUFFER_BYTES, stride * 4));
+        final int[] record = new int[stride];
+        boolean valid;
+
+        RunReader(Path path) throws IOException {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+            bytes.flip();
+        }
+
+        // Loads the next record; false at the end of the run
+        boolean next() throws IOException {
+            if (bytes.remaining() < stride * 4) {
+                bytes.compact();
+                while (bytes.position() < stride * 4 && channel.read(bytes) >= 0);
+                bytes.flip();
+            }
+            valid = bytes.remaining() >= stride * 4;
+            if (valid)
+                for (int i = 0; i < stride; ++i)
+                    record[i] = bytes.getInt();
+            return valid;
+        }
+
+        void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+import static java.lang.System.out;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.*;
+import game.board.compact.BoardCompact;
+
+/**
+ * {@link MyAgent} running the disk-backed {@link ExternalAStar}, for levels whose state space does not fit the heap.
+ * Run files go to the directory named by the "sokoban.external.dir" system property, or a temporary directory.
+ */
+public class ExternalAStarAgent extends MyAgent {
+	protected int bufferRecords = ExternalAStar.DEFAULT_BUFFER_RECORDS;
+
+	@Override
+	protected List<EDirection> think(BoardCompact board) {
+		long searchStartMillis = System.currentTimeMillis();
+		analyzeLevel(board);
+
+		String runDirectory = System.getProperty("sokoban.external.dir");
+		Path directory = runDirectory == null ? null : Paths.get(runDirectory);
+
+		List<? extends CAction> plan;
+		if (optimal) {
+			Solution2<BoardCompact, CAction> solution =
+					ExternalAStar.search(new SokobanProblem(), directory, bufferRecords, searchDeadlineMillis());
+			plan = solution == null ? null : solution.actions;
+		} else {
+			Solution2<BoardCompact, CWalkPush> solution =
+					ExternalAStar.search(new PushProblem(), directory, bufferRecords, searchDeadlineMillis());
+			plan = solution == null ? null : solution.actions;
+		}
+
+		List<EDirection> result = new ArrayList<>();
+		if (plan != null) {
+			for (CAction action : plan) {
+				for (EDirection dir : action.getDirections()) {
+					result.add(dir);
+				}
+			}
+		}
+
+		if (verbose) {
+			out.println("Search took: " + (System.currentTimeMillis() - searchStartMillis) + " ms");
+		}
+
+		return result.isEmpty() ? null : result;
+	}
+}
@@ -0,0 +1,92 @@
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.oop.EEntity;
+
+/**
+ * Freeze deadlocks: after a push, checks whether the pushed box can never move again because it is blocked along both
+ * axes by walls, dead squares or other boxes that are blocked themselves. If that box, or any box it depends on, is
+ * frozen off its goal, the position cannot be solved.
+ *
+ * Boxes already checked are treated as walls, which keeps the check linear and cuts circular dependencies. One instance
+ * per search thread; the push is examined virtually, the board is not touched.
+ */
+public class FreezeDeadlockDetector {
+    private final boolean[][] deadSquares;
+    private final boolean[][] visited;
+    private final int[] visitedCells;
+    private int visitedCount;
+
+    // The board as it is after the examined push
+    private BoardCompact board;
+    private int fromX, fromY, toX, toY;
+    private boolean frozenOffGoal;
+
+    public FreezeDeadlockDetector(BoardCompact board, boolean[][] deadSquares) {
+        this.deadSquares = deadSquares;
+        visited = new boolean[board.width()][board.height()];
+        visitedCells = new int[board.width() * board.height()];
+    }
+
+    /**
+     * Whether pushing the box at [boxX, boxY] to [boxX + dX, boxY + dY] freezes boxes off their goals.
+     */
+    public boolean isDeadlock(BoardCompact board, int boxX, int boxY, int dX, int dY) {
+        this.board = board;
+        fromX = boxX;
+        fromY = boxY;
+        toX = boxX + dX;
+        toY = boxY + dY;
+        frozenOffGoal = false;
+
+        boolean deadlock = isFrozen(toX, toY) && frozenOffGoal;
+
+        for (int i = 0; i < visitedCount; i++) {
+            visited[visitedCells[i] / board.height()][visitedCells[i] % board.height()] = false;
+        }
+        visitedCount = 0;
+        this.board = null;
+        return deadlock;
+    }
+
+    private boolean isFrozen(int x, int y) {
+        visited[x][y] = true;
+        visitedCells[visitedCount++] = x * board.height() + y;
+
+        boolean frozen = isBlocked(x, y, 1, 0) && isBlocked(x, y, 0, 1);
+        if (frozen) {
+            int tile = tile(x, y);
+            int boxNum = CTile.getBoxNum(tile);
+            if (!CTile.forBox(boxNum, tile) && !CTile.forAnyBox(tile)) frozenOffGoal = true;
+        }
+        return frozen;
+    }
+
+    /**
+     * Whether the box at [x, y] cannot move along the axis [dX, dY].
+     */
+    private boolean isBlocked(int x, int y, int dX, int dY) {
+        int ax = x - dX, ay = y - dY;
+        int bx = x + dX, by = y + dY;
+
+        if (isWall(ax, ay) || isWall(bx, by)) return true;
+        if (deadSquares[ax][ay] && deadSquares[bx][by]) return true;
+        if (CTile.isSomeBox(tile(ax, ay)) && isFrozen(ax, ay)) return true;
+        if (CTile.isSomeBox(tile(bx, by)) && isFrozen(bx, by)) return true;
+        return false;
+    }
+
+    private boolean isWall(int x, int y) {
+        if (x < 0 || x >= board.width() || y < 0 || y >= board.height()) return true;
+        return visited[x][y] || CTile.isWall(board.tile(x, y));
+    }
+
+    private int tile(int x, int y) {
+        if (x == toX && y == toY) {
+            return (board.tile(x, y) & EEntity.NULLIFY_ENTITY_FLAG) | (board.tile(fromX, fromY) & EEntity.SOME_ENTITY_FLAG);
+        }
+        if (x == fromX && y == fromY) {
+            return (board.tile(x, y) & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.NONE.getFlag();
+        }
+        return board.tile(x, y);
+    }
+}
@@ -0,0 +1,235 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+import search.BucketQueue;
+import search.ClosedSet;
+import search.MpscQueue;
+import search.PackedClosedSet;
+import search.StateEncoder;
+
+// Hash-distributed A* (HDA*): every worker owns the states whose fingerprint maps to it,
+// with its own closed set and bucket frontier. Generated children are sent to their owner
+// through lock-free MPSC queues. The first solution found is kept as an incumbent; the
+// search ends (and the incumbent is optimal) once every worker is idle - no frontier node
+// can beat the incumbent - and every sent message has been received.
+//
+// The search gives up when the calling thread is interrupted or the deadline passes; the
+// incumbent, if any, is returned then, without the optimality guarantee.
+//
+// Message counts are kept per worker, each pair on its own cache lines, and summed only by
+// the termination check; an idle worker spins briefly and then parks until a message
+// arrives.
+class HDAStar<S, A, P extends IntHeuristicProblem<S, A> & StateEncoder<S>> {
+    // 'problems' must return a fresh instance per call, one is used by each worker thread;
+    // 'deadlineMillis' is in System.currentTimeMillis() terms
+    public static <S, A, P extends IntHeuristicProblem<S, A> & StateEncoder<S>> Solution2<S, A> search(
+            Supplier<P> problems, int threads, long deadlineMillis) {
+        return new HDAStar<S, A, P>(problems, threads).run(deadlineMillis);
+    }
+
+    // Longs between the counters of two workers: 128 bytes, two cache lines
+    private static final int COUNTER_STRIDE = 16;
+    private static final int SPINS_BEFORE_PARK = 1 << 10;
+    private static final long PARK_NANOS = 1_000_000;
+
+    private final List<Worker> workers = new ArrayList<>();
+    // [i * COUNTER_STRIDE] messages sent by worker i, [i * COUNTER_STRIDE + 1] received by it;
+    // only worker i writes them (and run() before the workers start)
+    private final AtomicLongArray counters;
+    private final AtomicReference<AStar.Tuple<S, A>> best = new AtomicReference<>();
+    private volatile boolean done = false;
+
+    private HDAStar(Supplier<P> problems, int threads) {
+        counters = new AtomicLongArray(threads * COUNTER_STRIDE);
+        for (int i = 0; i < threads; ++i)
+            workers.add(new Worker(i, problems.get()));
+    }
+
+    private Solution2<S, A> run(long deadlineMillis) {
+        P prob = workers.get(0).problem;
+        S initial = prob.initialState();
+        // counted as sent by worker 0, which has not started yet
+        send(0, owner(prob.fingerprint(initial)), new AStar.Tuple<S, A>(initial, null, 0, 0, null));
+
+        for (Worker worker : workers)
+            worker.start();
+        try {
+            while (!terminated()) {
+                if (System.currentTimeMillis() >= deadlineMillis)
+                    break;
+                Thread.sleep(1);
+            }
+        } catch (InterruptedException e) {
+            // agent stopped, give up
+        } finally {
+            done = true;
+            for (Worker worker : workers)
+                worker.interrupt();
+        }
+
+        AStar.Tuple<S, A> goal = best.get();
+        return goal == null ? null : AStar.makePath(prob, goal);
+    }
+
+    private int owner(long fingerprint) {
+        long mixed = fingerprint * 0x9E3779B97F4A7C15L;
+        return (int) ((mixed >>> 32) % workers.size());
+    }
+
+    private void send(int sender, int owner, AStar.Tuple<S, A> node) {
+        // before offer(), so the message is never unaccounted for
+        increment(sender * COUNTER_STRIDE);
+        Worker worker = workers.get(owner);
+        worker.inbox.offer(node);
+        if (worker.parked)
+            LockSupport.unpark(worker);
+    }
+
+    // Single writer, so no atomic read-modify-write is needed
+    private void increment(int counter) {
+        counters.lazySet(counter, counters.get(counter) + 1);
+    }
+
+    private long sum(int offset) {
+        long sum = 0;
+        for (int i = 0; i < workers.size(); ++i)
+            sum += counters.get(i * COUNTER_STRIDE + offset);
+        return sum;
+    }
+
+    // Two consistent snapshots: everybody idle, no worker woke up in between, nothing in flight.
+    private boolean terminated() {
+        long epochs = 0;
+        for (Worker worker : workers) {
+            if (!worker.idle)
+                return false;
+            epochs += worker.epoch;
+        }
+        long s = sum(0), r = sum(1);
+        if (s != r)
+            return false;
+        for (Worker worker : workers) {
+            if (!worker.idle)
+                return false;
+            epochs -= worker.epoch;
+        }
+        return epochs == 0 && sum(0) == s && sum(1) == r;
+    }
+
+    private int incumbentCost() {
+        AStar.Tuple<S, A> goal = best.get();
+        return goal == null ? Integer.MAX_VALUE : (int) goal.pathCost;
+    }
+
+    private void offerGoal(AStar.Tuple<S, A> goal) {
+        while (true) {
+            AStar.Tuple<S, A> current = best.get();
+            if (current != null && current.pathCost <= goal.pathCost)
+                return;
+            if (best.compareAndSet(current, goal))
+                return;
+        }
+    }
+
+    private class Worker extends Thread {
+        final int index;
+        final P problem;
+        final ClosedSet<S> closed;
+        final BucketQueue<AStar.Tuple<S, A>> open = new BucketQueue<>();
+        final MpscQueue<AStar.Tuple<S, A>> inbox = new MpscQueue<>();
+
+        volatile boolean idle = false;
+        volatile long epoch = 0;  // incremented whenever the worker stops being idle
+        volatile boolean parked = false;
+        int idleSpins = 0;
+
+        Worker(int index, P problem) {
+            super("HDAStar-" + index);
+            setDaemon(true);
+            this.index = index;
+            this.problem = problem;
+            this.closed = new PackedClosedSet<>(problem);
+        }
+
+        @Override
+        public void run() {
+            while (!done) {
+                AStar.Tuple<S, A> message = inbox.poll();
+                if (message != null) {
+                    wake();
+                    increment(index * COUNTER_STRIDE + 1);
+                    insert(message);
+                    continue;
+                }
+
+                if (open.isEmpty() || open.minF() >= incumbentCost()) {
+                    // nothing here can beat the incumbent
+                    idle = true;
+                    pause();
+                    continue;
+                }
+                wake();
+                expand(open.poll());
+            }
+        }
+
+        private void wake() {
+            if (idle) {
+                ++epoch;
+                idle = false;
+                idleSpins = 0;
+            }
+        }
+
+        // Spin for a while, then park until send() unparks us (or a timeout, as a safety net)
+        private void pause() {
+            if (idleSpins < SPINS_BEFORE_PARK) {
+                ++idleSpins;
+                Thread.onSpinWait();
+                return;
+            }
+            parked = true;
+            if (inbox.isEmpty() && !done)  // re-check after publishing 'parked', see send()
+                LockSupport.parkNanos(this, PARK_NANOS);
+            parked = false;
+        }
+
+        private void insert(AStar.Tuple<S, A> node) {
+            if (!closed.improve(node.state, node.pathCost))
+                return;
+            int g = (int) node.pathCost;
+            int h = problem.intEstimate(node.state);
+            if (g + h >= incumbentCost())
+                return;
+            node.totalCost = g + h;
+            open.add(node, g + h, h);
+        }
+
+        private void expand(AStar.Tuple<S, A> curr) {
+            if (closed.cost(curr.state) < curr.pathCost)
+                return;
+            if (curr.totalCost >= incumbentCost())
+                return;
+            if (problem.isGoal(curr.state)) {
+                offerGoal(curr);
+                return;
+            }
+
+            int g = (int) curr.pathCost;
+            for (A action : problem.actions(curr.state)) {
+                S nextS = problem.result(curr.state, action);
+                AStar.Tuple<S, A> next = new AStar.Tuple<S, A>(
+                        nextS, action, g + problem.intCost(curr.state, action), 0, curr);
+                int owner = owner(problem.fingerprint(nextS));
+                if (owner == index)
+                    insert(next);
+                else
+                    send(index, owner, next);
+            }
+        }
+    }
+}
@@ -0,0 +1,45 @@
+import static java.lang.System.out;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.*;
+import game.board.compact.BoardCompact;
+
+/**
+ * {@link MyAgent} running {@link HDAStar} on all available cores.
+ */
+public class HDAStarAgent extends MyAgent {
+	protected int threads = Runtime.getRuntime().availableProcessors();
+
+	@Override
+	protected List<EDirection> think(BoardCompact board) {
+		long searchStartMillis = System.currentTimeMillis();
+		analyzeLevel(board);
+
+		List<? extends CAction> plan;
+		if (optimal) {
+			Solution2<BoardCompact, CAction> solution = HDAStar.search(SokobanProblem::new, threads, searchDeadlineMillis());
+			plan = solution == null ? null : solution.actions;
+		} else {
+			Solution2<BoardCompact, CWalkPush> solution = HDAStar.search(PushProblem::new, threads, searchDeadlineMillis());
+			plan = solution == null ? null : solution.actions;
+		}
+
+		List<EDirection> result = new ArrayList<>();
+		if (plan != null) {
+			for (CAction action : plan) {
+				for (EDirection dir : action.getDirections()) {
+					result.add(dir);
+				}
+			}
+		}
+
+		if (verbose) {
+			out.println("Threads: " + threads);
+			out.println("Search took: " + (System.currentTimeMillis() - searchStartMillis) + " ms");
+		}
+
+		return result.isEmpty() ? null : result;
+	}
+}
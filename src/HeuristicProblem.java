@@ -0,0 +1,3 @@
+interface HeuristicProblem<S, A> extends Problem<S, A> {
+    double estimate(S state); // optimistic estimate of cost from state to goal
+}
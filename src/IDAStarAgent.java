@@ -0,0 +1,135 @@
+import static java.lang.System.out;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.*;
+import game.actions.oop.EActionType;
+import game.board.compact.BoardCompact;
+import search.TranspositionTable;
+
+/**
+ * Move-optimal IDA* that mutates a single {@link BoardCompact} in place via {@link CAction#perform(BoardCompact)} /
+ * {@link CAction#reverse(BoardCompact)}. A fixed-size {@link TranspositionTable} keyed by {@link BoardCompact#zobristKey()}
+ * cuts transpositions and remembers improved bounds, so memory does not grow with the search.
+ */
+public class IDAStarAgent extends MyAgent {
+	// Table entries; every entry takes 24 bytes
+	protected static final int TABLE_SIZE = 1 << 21;
+
+	private static final int FOUND = -1;
+	private static final int NOT_FOUND = Integer.MAX_VALUE;
+
+	private final CAction[] actions;
+	private TranspositionTable table;
+	private SokobanProblem problem;
+	private EDirection[] path;
+	private int pathLength;
+	private int iteration;
+
+	// Set when a subtree was cut at a state on the current path; bounds of such subtrees are not stored
+	private boolean cycleCut;
+
+	public IDAStarAgent() {
+		actions = new CAction[8];
+		int i = 0;
+		for (EDirection dir : EDirection.arrows()) {
+			actions[i++] = CPush.getAction(dir);
+			actions[i++] = CMove.getAction(dir);
+		}
+	}
+
+	@Override
+	protected List<EDirection> think(BoardCompact board) {
+		searchedNodes = 0;
+		long searchStartMillis = System.currentTimeMillis();
+		analyzeLevel(board);
+		problem = new SokobanProblem();
+		if (table == null) table = new TranspositionTable(TABLE_SIZE);
+		else table.clear();
+		path = new EDirection[64];
+
+		int threshold = problem.intEstimate(this.board);
+		List<EDirection> result = null;
+		for (iteration = 1; threshold != NOT_FOUND; ++iteration) {
+			if (verbose) out.println("IDA* threshold " + threshold);
+			pathLength = 0;
+			cycleCut = false;
+			int next = search(0, threshold);
+			if (next == FOUND) {
+				result = new ArrayList<>(pathLength);
+				for (int i = 0; i < pathLength; ++i) result.add(path[i]);
+				break;
+			}
+			threshold = next;
+		}
+
+		long searchTime = System.currentTimeMillis() - searchStartMillis;
+		if (verbose) {
+			out.println("Nodes visited: " + searchedNodes);
+			out.printf("Performance: %.1f nodes/sec\n",
+					((double) searchedNodes / (double) searchTime * 1000));
+		}
+
+		return result;
+	}
+
+	/**
+	 * Returns {@link #FOUND} with the plan in {@link #path}, otherwise the lowest f-value that exceeded 'threshold'.
+	 */
+	private int search(int g, int threshold) {
+		++searchedNodes;
+		long key = board.zobristKey();
+
+		int h = problem.intEstimate(board);
+		int slot = table.probe(key);
+		if (slot >= 0) {
+			if (table.iteration(slot) == iteration && table.g(slot) <= g) {
+				// TRANSPOSITION: already (being) searched in this iteration from a cheaper or equal path
+				int f = table.isOpen(slot) ? NOT_FOUND : g + Math.max(h, table.bound(slot));
+				if (f <= threshold) f = NOT_FOUND;
+				if (f == NOT_FOUND) cycleCut = true;
+				return f;
+			}
+			h = Math.max(h, table.bound(slot));
+		}
+
+		int f = g + h;
+		if (f > threshold) return f;
+		if (board.isVictory()) return FOUND;
+
+		slot = table.open(key, g, h, threshold - g, iteration);
+		boolean outerCut = cycleCut;
+		cycleCut = false;
+
+		int min = NOT_FOUND;
+		for (CAction action : actions) {
+			if (!action.isPossible(board)) continue;
+			EDirection dir = action.getDirection();
+			if (action.getType() == EActionType.PUSH
+					&& problem.isDeadPush(board, board.playerX + dir.dX, board.playerY + dir.dY, dir)) continue;
+
+			action.perform(board);
+			push(action.getDirection());
+			int t = search(g + 1, threshold);
+			if (t == FOUND) return FOUND;
+			--pathLength;
+			action.reverse(board);
+
+			if (t < min) min = t;
+		}
+
+		if (slot >= 0) table.close(slot, cycleCut || min == NOT_FOUND ? -1 : min - g);
+		cycleCut |= outerCut;
+		return min;
+	}
+
+	private void push(EDirection dir) {
+		if (pathLength == path.length) {
+			EDirection[] larger = new EDirection[path.length * 2];
+			System.arraycopy(path, 0, larger, 0, pathLength);
+			path = larger;
+		}
+		path[pathLength++] = dir;
+	}
+}
@@ -0,0 +1,12 @@
+// IntHeuristicProblem that can apply an action to a reusable copy of a state and take it
+// back again. AStar.searchInt then checks the children of a node for duplicates on that
+// scratch state and copies only the ones it keeps.
+interface InPlaceProblem<S, A> extends IntHeuristicProblem<S, A> {
+    S scratch(S state); // mutable copy of 'state', reused by the next call
+
+    void apply(S scratch, A action);
+
+    void undo(S scratch, A action); // takes back the last apply()
+
+    S copy(S scratch); // independent copy of the scratch state
+}
@@ -0,0 +1,14 @@
+// HeuristicProblem with small non-negative integer costs, see AStar.searchInt
+interface IntHeuristicProblem<S, A> extends HeuristicProblem<S, A> {
+    int intEstimate(S state);
+
+    int intCost(S state, A action);
+
+    default double estimate(S state) {
+        return intEstimate(state);
+    }
+
+    default double cost(S state, A action) {
+        return intCost(state, action);
+    }
+}
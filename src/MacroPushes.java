@@ -0,0 +1,559 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.CPush;
+import game.actions.compact.CWalk;
+import game.actions.compact.CWalkPush;
+import game.actions.compact.CWalkPushMacro;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.oop.EEntity;
+
+/**
+ * Tunnel and goal room macro pushes for push-level search.
+ *
+ * The level is analysed once: a tunnel cell is a floor cell walled on both sides across the push axis, and a goal room is
+ * an area holding goals and no boxes that can only be entered through a single entrance cell. Successor generation then
+ * turns a push into a {@link CWalkPushMacro} that
+ * <ul>
+ * <li>keeps pushing the box while it and the player stay in a tunnel without goals, and</li>
+ * <li>once a box is pushed onto a room entrance, parks it on the deepest free goal of the room, if the remaining free goals
+ * stay reachable for the next boxes.</li>
+ * </ul>
+ * Both skip intermediate states the search would otherwise store.
+ *
+ * Where a retrograde analysis finds a packing order for a room, parking follows it instead and {@link #isOutOfOrder}
+ * rejects pushes that fill its goals out of order. Parking and packing orders assume boxes enter a room one at a time
+ * and may in rare levels cut off the only solution.
+ *
+ * The analysis is shared; use {@link #view()} to get an instance with its own buffers for every search thread.
+ */
+public class MacroPushes {
+	/**
+	 * Filter of pushes leading to dead positions, see MyAgent.SokobanProblem#isDeadPush.
+	 */
+	public interface DeadPushTest {
+		boolean isDeadPush(BoardCompact state, int boxX, int boxY, EDirection dir);
+	}
+
+	// Rooms above this size are not worth the parking search done on every push onto their entrance
+	protected static final int MAX_ROOM_SIZE = 64;
+
+	private static final EDirection[] NO_STEPS = new EDirection[0];
+
+	// Search node of a box inside a room: cell * NODE_KINDS + index of the last push direction, or START
+	private static final int NODE_KINDS = 5;
+	private static final int START = 4;
+
+	private final int width, height;
+	private final boolean[] tunnelX; // walls above and below, the box can only move left or right
+	private final boolean[] tunnelY; // walls left and right
+	private final boolean[] goal;
+	private final int[] room;        // goal room id (from 1) of the cell, 0 outside rooms
+	private final int[] entrance;    // room id the cell is the entrance of, 0 otherwise
+	private final int[][] roomCells; // [id]
+	private final int[][] roomGoals; // [id] in packing order if known, else by decreasing distance from the entrance
+	private final int[] packRank;    // index of a room goal in its room's packing order, -1 if there is none
+
+	private final int[] queue;
+	private final int[] walkQueue;
+	private final int[] reach;
+	private final byte[] reachDir;
+	private int reachStamp;
+	private final int[] nodeSeen;
+	private final int[] nodeParent;
+	private int nodeStamp;
+
+	public static MacroPushes analyze(BoardCompact board) {
+		return new MacroPushes(board);
+	}
+
+	private MacroPushes(BoardCompact board) {
+		width = board.width();
+		height = board.height();
+		int cells = width * height;
+		tunnelX = new boolean[cells];
+		tunnelY = new boolean[cells];
+		goal = new boolean[cells];
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				if (isWall(board, x, y)) continue;
+				tunnelX[x * height + y] = isWall(board, x, y - 1) && isWall(board, x, y + 1);
+				tunnelY[x * height + y] = isWall(board, x - 1, y) && isWall(board, x + 1, y);
+				goal[x * height + y] = CTile.forSomeBox(board.tile(x, y));
+			}
+		}
+
+		room = new int[cells];
+		entrance = new int[cells];
+		queue = new int[cells * NODE_KINDS];
+		walkQueue = new int[cells];
+		reach = new int[cells];
+		reachDir = new byte[cells];
+		nodeSeen = new int[cells * NODE_KINDS];
+		nodeParent = new int[cells * NODE_KINDS];
+
+		List<int[]> rooms = findGoalRooms(board);
+		roomCells = new int[rooms.size() + 1][];
+		roomGoals = new int[rooms.size() + 1][];
+		for (int id = 1; id <= rooms.size(); id++) {
+			int[] candidate = rooms.get(id - 1);
+			int door = candidate[0];
+			roomCells[id] = Arrays.copyOfRange(candidate, 1, candidate.length);
+			entrance[door] = id;
+			for (int cell : roomCells[id]) room[cell] = id;
+			roomGoals[id] = goalsByDepth(door, id);
+		}
+
+		packRank = new int[cells];
+		Arrays.fill(packRank, -1);
+		for (int id = 1; id <= rooms.size(); id++) {
+			int[] order = packingOrder(board, rooms.get(id - 1)[0], id);
+			if (order == null) continue;
+			roomGoals[id] = order;
+			for (int rank = 0; rank < order.length; rank++) packRank[order[rank]] = rank;
+		}
+	}
+
+	private MacroPushes(MacroPushes shared) {
+		width = shared.width;
+		height = shared.height;
+		tunnelX = shared.tunnelX;
+		tunnelY = shared.tunnelY;
+		goal = shared.goal;
+		room = shared.room;
+		entrance = shared.entrance;
+		roomCells = shared.roomCells;
+		roomGoals = shared.roomGoals;
+		packRank = shared.packRank;
+
+		int cells = width * height;
+		queue = new int[cells * NODE_KINDS];
+		walkQueue = new int[cells];
+		reach = new int[cells];
+		reachDir = new byte[cells];
+		nodeSeen = new int[cells * NODE_KINDS];
+		nodeParent = new int[cells * NODE_KINDS];
+	}
+
+	/**
+	 * An instance for one search thread; the analysis is shared, the buffers are not.
+	 */
+	public MacroPushes view() {
+		return new MacroPushes(this);
+	}
+
+	public int roomCount() {
+		return roomCells.length - 1;
+	}
+
+	// ANALYSIS
+	// ========
+
+	/**
+	 * Candidate rooms as [entrance, cells...]: removing the entrance cuts the cells off from the player, they hold a goal
+	 * and no box. Nested candidates share cells; the largest ones win.
+	 */
+	private List<int[]> findGoalRooms(BoardCompact board) {
+		int cells = width * height;
+		int player = board.playerX * height + board.playerY;
+		List<int[]> candidates = new ArrayList<>();
+		for (int door = 0; door < cells; door++) {
+			if (door == player || goal[door] || isWall(board, door / height, door % height)) continue;
+
+			// Everything the player reaches without the entrance is outside
+			++reachStamp;
+			reach[door] = reachStamp;
+			flood(board, player);
+			int outsideStamp = reachStamp;
+
+			// The room is whatever the entrance leads to
+			int[] candidate = new int[cells + 1];
+			int size = 0;
+			boolean hasGoal = false, hasBox = false;
+			int head = 0, tail = 0;
+			for (EDirection dir : EDirection.arrows()) {
+				int x = door / height + dir.dX, y = door % height + dir.dY;
+				if (isWall(board, x, y) || reach[x * height + y] == outsideStamp) continue;
+				reach[x * height + y] = outsideStamp + 1;
+				queue[tail++] = x * height + y;
+			}
+			while (head < tail && size < MAX_ROOM_SIZE) {
+				int cell = queue[head++];
+				candidate[1 + size++] = cell;
+				hasGoal |= goal[cell];
+				hasBox |= CTile.isSomeBox(board.tile(cell / height, cell % height));
+				for (EDirection dir : EDirection.arrows()) {
+					int x = cell / height + dir.dX, y = cell % height + dir.dY;
+					if (isWall(board, x, y) || x * height + y == door || reach[x * height + y] >= outsideStamp) continue;
+					reach[x * height + y] = outsideStamp + 1;
+					queue[tail++] = x * height + y;
+				}
+			}
+			++reachStamp;
+			if (head < tail || size == 0 || !hasGoal || hasBox) continue;
+
+			candidate[0] = door;
+			candidates.add(Arrays.copyOf(candidate, 1 + size));
+		}
+
+		candidates.sort((a, b) -> b.length - a.length);
+		boolean[] taken = new boolean[cells];
+		List<int[]> rooms = new ArrayList<>();
+		for (int[] candidate : candidates) {
+			boolean overlaps = false;
+			for (int cell : candidate) overlaps |= taken[cell];
+			if (overlaps) continue;
+			for (int cell : candidate) taken[cell] = true;
+			rooms.add(candidate);
+		}
+		return rooms;
+	}
+
+	/**
+	 * Marks cells reachable from 'start' over floor with a new {@link #reachStamp}; cells already stamped with the
+	 * previous stamp are taken as blocked.
+	 */
+	private void flood(BoardCompact board, int start) {
+		int blocked = reachStamp++;
+		int head = 0, tail = 0;
+		queue[tail++] = start;
+		reach[start] = reachStamp;
+		while (head < tail) {
+			int cell = queue[head++];
+			for (EDirection dir : EDirection.arrows()) {
+				int x = cell / height + dir.dX, y = cell % height + dir.dY;
+				if (isWall(board, x, y)) continue;
+				int next = x * height + y;
+				if (reach[next] == reachStamp || reach[next] == blocked) continue;
+				reach[next] = reachStamp;
+				queue[tail++] = next;
+			}
+		}
+	}
+
+	private int[] goalsByDepth(int door, int id) {
+		int[] depth = new int[width * height];
+		Arrays.fill(depth, -1);
+		int head = 0, tail = 0;
+		queue[tail++] = door;
+		depth[door] = 0;
+		List<Integer> goals = new ArrayList<>();
+		while (head < tail) {
+			int cell = queue[head++];
+			if (goal[cell]) goals.add(cell);
+			for (EDirection dir : EDirection.arrows()) {
+				int x = cell / height + dir.dX, y = cell % height + dir.dY;
+				if (!inside(x, y) || room[x * height + y] != id || depth[x * height + y] >= 0) continue;
+				depth[x * height + y] = depth[cell] + 1;
+				queue[tail++] = x * height + y;
+			}
+		}
+		goals.sort((a, b) -> depth[b] - depth[a]);
+		int[] result = new int[goals.size()];
+		for (int i = 0; i < result.length; i++) result[i] = goals.get(i);
+		return result;
+	}
+
+	/**
+	 * Retrograde analysis of room 'id': starting with all its goals filled, repeatedly empties a goal that a box could have
+	 * been pushed onto last, i.e. from the entrance with the remaining goals filled. Emptying goals only makes space, so
+	 * any such goal will do. Returns the goals in the order to fill them, or null if the room cannot be filled one box at
+	 * a time through its entrance.
+	 */
+	private int[] packingOrder(BoardCompact board, int door, int id) {
+		int outside = -1;
+		for (EDirection dir : EDirection.arrows()) {
+			int x = door / height + dir.dX, y = door % height + dir.dY;
+			if (!isWall(board, x, y) && room[x * height + y] != id) outside = x * height + y;
+		}
+		if (outside < 0) return null;
+
+		// Walls and the filled room only; other boxes may be anywhere by then
+		BoardCompact packing = new BoardCompact(width, height);
+		for (int x = 0; x < width; x++) {
+			for (int y = 0; y < height; y++) {
+				int tile = board.tile(x, y) & EEntity.NULLIFY_ENTITY_FLAG;
+				boolean filled = goal[x * height + y] && room[x * height + y] == id;
+				packing.tiles[x][y] = tile | (filled ? EEntity.BOX_1.getFlag() : EEntity.NONE.getFlag());
+			}
+		}
+
+		int[] goals = roomGoals[id];
+		int[] order = new int[goals.length];
+		boolean[] emptied = new boolean[goals.length];
+		for (int last = goals.length - 1; last >= 0; last--) {
+			// Shallow goals first, they are the likely ones to be filled last
+			int found = -1;
+			for (int i = goals.length - 1; i >= 0 && found < 0; i--) {
+				if (emptied[i]) continue;
+				int x = goals[i] / height, y = goals[i] % height;
+				int tile = packing.tiles[x][y] & EEntity.NULLIFY_ENTITY_FLAG;
+				packing.tiles[x][y] = tile | EEntity.NONE.getFlag();
+				if (boxPath(packing, door, outside, goals[i], id) != null) found = i;
+				else packing.tiles[x][y] = tile | EEntity.BOX_1.getFlag();
+			}
+			if (found < 0) return null;
+			emptied[found] = true;
+			order[last] = goals[found];
+		}
+		return order;
+	}
+
+	// MACROS
+	// ======
+
+	/**
+	 * Whether pushing the box at [boxX, boxY] in 'dir' fills a room goal out of order: it takes the box off a goal before
+	 * the target in the room's packing order, or leaves the box on the target while a goal before it is still free. A box
+	 * that can still be pushed on from the target to such a free goal only passes over the target and is not rejected.
+	 */
+	public boolean isOutOfOrder(BoardCompact state, int boxX, int boxY, EDirection dir) {
+		int target = (boxX + dir.dX) * height + boxY + dir.dY;
+		int rank = packRank[target];
+		if (rank <= 0) return false;
+		int id = room[target];
+		int[] order = roomGoals[id];
+		int box = boxX * height + boxY;
+		boolean free = false;
+		for (int i = 0; i < rank; i++) {
+			if (order[i] == box) return true;
+			free |= !CTile.isSomeBox(state.tile(order[i] / height, order[i] % height));
+		}
+		if (!free) return false;
+
+		for (int i = 0; i < rank; i++) {
+			if (CTile.isSomeBox(state.tile(order[i] / height, order[i] % height))) continue;
+			if (boxPath(state, box, target * NODE_KINDS + dir.index, box, order[i], id) != null) return false;
+		}
+		return true;
+	}
+
+	/**
+	 * 'action' (a legal push of 'state' that is not dead), or a macro continuing it through a tunnel and / or into
+	 * a goal room.
+	 */
+	public CWalkPush extend(BoardCompact state, CWalkPush action, DeadPushTest deadPushTest) {
+		EDirection dir = action.getPushDirection();
+		int x = action.getWalk().getX() + 2 * dir.dX, y = action.getWalk().getY() + 2 * dir.dY;
+		if (!isTunnelPush(x, y, dir) && entrance[x * height + y] == 0) return action;
+
+		BoardCompact scratch = state.clone();
+		List<CWalkPush> steps = new ArrayList<>();
+		action.perform(scratch);
+		steps.add(action);
+
+		while (isTunnelPush(x, y, dir) && CTile.isFree(scratch.tile(x + dir.dX, y + dir.dY))
+				&& !deadPushTest.isDeadPush(scratch, x, y, dir)) {
+			CWalkPush push = new CWalkPush(new CWalk(x - dir.dX, y - dir.dY, NO_STEPS), CPush.getAction(dir));
+			push.perform(scratch);
+			steps.add(push);
+			x += dir.dX;
+			y += dir.dY;
+		}
+
+		int id = entrance[x * height + y];
+		if (id != 0 && room[(x - dir.dX) * height + y - dir.dY] != id) {
+			park(scratch, x, y, id, steps);
+		}
+		return steps.size() == 1 ? action : new CWalkPushMacro(steps);
+	}
+
+	/**
+	 * Whether the box just pushed to [x, y] in 'dir' should go on: it is off goal and both it and the player behind it
+	 * are in a tunnel along 'dir'.
+	 */
+	private boolean isTunnelPush(int x, int y, EDirection dir) {
+		int cell = x * height + y;
+		int behind = (x - dir.dX) * height + y - dir.dY;
+		boolean[] tunnel = dir.dX != 0 ? tunnelX : tunnelY;
+		return tunnel[cell] && tunnel[behind] && !goal[cell] && inside(x + dir.dX, y + dir.dY);
+	}
+
+	/**
+	 * Pushes the box on the entrance [x, y] of room 'id' to the next free goal of the packing order or, if the room has
+	 * none, to the deepest free goal that leaves the other free goals reachable; appends the pushes to 'steps'. Does
+	 * nothing if the room holds a box off goal or no goal fits.
+	 */
+	private void park(BoardCompact scratch, int x, int y, int id, List<CWalkPush> steps) {
+		for (int cell : roomCells[id]) {
+			int tile = scratch.tile(cell / height, cell % height);
+			if (CTile.isSomeBox(tile) && !accepts(tile, tile)) return;
+		}
+
+		int door = x * height + y;
+		int outside = scratch.playerX * height + scratch.playerY;
+		int boxTile = scratch.tile(x, y);
+		for (int target : roomGoals[id]) {
+			int tile = scratch.tile(target / height, target % height);
+			if (CTile.isSomeBox(tile)) continue;
+			boolean ordered = packRank[target] >= 0;
+			if (!accepts(boxTile, tile)) {
+				if (ordered) return;
+				continue;
+			}
+			int[] pushes = boxPath(scratch, door, outside, target, id);
+			if (pushes == null) {
+				if (ordered) return;
+				continue;
+			}
+
+			int first = steps.size();
+			int boxX = x, boxY = y;
+			for (int index : pushes) {
+				EDirection dir = EDirection.arrows()[index];
+				int px = boxX - dir.dX, py = boxY - dir.dY;
+				CWalkPush push = new CWalkPush(new CWalk(px, py, walkPath(scratch, px, py)), CPush.getAction(dir));
+				push.perform(scratch);
+				steps.add(push);
+				boxX += dir.dX;
+				boxY += dir.dY;
+			}
+
+			if (ordered || othersReachable(scratch, door, outside, id)) return;
+			for (int i = steps.size() - 1; i >= first; --i) {
+				steps.remove(i).reverse(scratch);
+			}
+		}
+	}
+
+	private boolean othersReachable(BoardCompact scratch, int door, int outside, int id) {
+		for (int target : roomGoals[id]) {
+			if (CTile.isSomeBox(scratch.tile(target / height, target % height))) continue;
+			if (boxPath(scratch, door, outside, target, id) == null) return false;
+		}
+		return true;
+	}
+
+	private static boolean accepts(int boxTile, int goalTile) {
+		int boxNum = CTile.getBoxNum(boxTile);
+		return CTile.forBox(boxNum, goalTile) || CTile.forAnyBox(goalTile);
+	}
+
+	/**
+	 * Push directions (indices into {@link EDirection#arrows()}) bringing a box from the entrance 'door' to 'target'
+	 * inside room 'id' with the player starting at 'player', or null. Whatever stands on 'door' is ignored: the box
+	 * there is the one being moved.
+	 */
+	private int[] boxPath(BoardCompact board, int door, int player, int target, int id) {
+		return boxPath(board, door, door * NODE_KINDS + START, player, target, id);
+	}
+
+	/**
+	 * As {@link #boxPath(BoardCompact, int, int, int, int)}, starting from search node 'start' (with the box anywhere in
+	 * the room, the moved box still standing on 'door' in 'board').
+	 */
+	private int[] boxPath(BoardCompact board, int door, int start, int player, int target, int id) {
+		++nodeStamp;
+		int head = 0, tail = 0;
+		nodeSeen[start] = nodeStamp;
+		nodeParent[start] = -1;
+		queue[tail++] = start;
+		while (head < tail) {
+			int node = queue[head++];
+			int box = node / NODE_KINDS, last = node % NODE_KINDS;
+			if (box == target) return pushes(node);
+
+			int bx = box / height, by = box % height;
+			int from = player;
+			if (last != START) {
+				EDirection dir = EDirection.arrows()[last];
+				from = (bx - dir.dX) * height + by - dir.dY;
+			}
+			markWalkable(board, from, box, door);
+
+			for (int index = 0; index < 4; index++) {
+				EDirection dir = EDirection.arrows()[index];
+				int px = bx - dir.dX, py = by - dir.dY;
+				int tx = bx + dir.dX, ty = by + dir.dY;
+				if (!inside(px, py) || !inside(tx, ty) || reach[px * height + py] != reachStamp) continue;
+				int to = tx * height + ty;
+				if (to != door && (room[to] != id || !CTile.isFree(board.tile(tx, ty)))) continue;
+				int child = to * NODE_KINDS + index;
+				if (nodeSeen[child] == nodeStamp) continue;
+				nodeSeen[child] = nodeStamp;
+				nodeParent[child] = node;
+				queue[tail++] = child;
+			}
+		}
+		return null;
+	}
+
+	private int[] pushes(int node) {
+		int count = 0;
+		for (int n = node; nodeParent[n] >= 0; n = nodeParent[n]) ++count;
+		int[] result = new int[count];
+		for (int n = node; nodeParent[n] >= 0; n = nodeParent[n]) result[--count] = n % NODE_KINDS;
+		return result;
+	}
+
+	/**
+	 * Stamps the cells the player can walk to from 'start' when the moved box stands on 'box' instead of 'door'.
+	 */
+	private void markWalkable(BoardCompact board, int start, int box, int door) {
+		++reachStamp;
+		int head = 0, tail = 0;
+		walkQueue[tail++] = start;
+		reach[start] = reachStamp;
+		while (head < tail) {
+			int cell = walkQueue[head++];
+			for (EDirection dir : EDirection.arrows()) {
+				int x = cell / height + dir.dX, y = cell % height + dir.dY;
+				if (!inside(x, y)) continue;
+				int next = x * height + y;
+				if (reach[next] == reachStamp || next == box) continue;
+				if (next != door && !CTile.isWalkable(board.tile(x, y))) continue;
+				reach[next] = reachStamp;
+				walkQueue[tail++] = next;
+			}
+		}
+	}
+
+	/**
+	 * Shortest walk of the player of 'board' to [x, y].
+	 */
+	private EDirection[] walkPath(BoardCompact board, int x, int y) {
+		++reachStamp;
+		int start = board.playerX * height + board.playerY;
+		int goalCell = x * height + y;
+		int head = 0, tail = 0;
+		queue[tail++] = start;
+		reach[start] = reachStamp;
+		while (head < tail && reach[goalCell] != reachStamp) {
+			int cell = queue[head++];
+			for (int index = 0; index < 4; index++) {
+				EDirection dir = EDirection.arrows()[index];
+				int nx = cell / height + dir.dX, ny = cell % height + dir.dY;
+				if (!inside(nx, ny)) continue;
+				int next = nx * height + ny;
+				if (reach[next] == reachStamp || !CTile.isWalkable(board.tile(nx, ny))) continue;
+				reach[next] = reachStamp;
+				reachDir[next] = (byte) index;
+				queue[tail++] = next;
+			}
+		}
+
+		int length = 0;
+		for (int cell = goalCell; cell != start; length++) {
+			EDirection dir = EDirection.arrows()[reachDir[cell]];
+			cell = (cell / height - dir.dX) * height + cell % height - dir.dY;
+		}
+		EDirection[] path = new EDirection[length];
+		for (int cell = goalCell; cell != start;) {
+			EDirection dir = EDirection.arrows()[reachDir[cell]];
+			path[--length] = dir;
+			cell = (cell / height - dir.dX) * height + cell % height - dir.dY;
+		}
+		return path;
+	}
+
+	private boolean isWall(BoardCompact board, int x, int y) {
+		return !inside(x, y) || CTile.isWall(board.tile(x, y));
+	}
+
+	private boolean inside(int x, int y) {
+		return x >= 0 && x < width && y >= 0 && y < height;
+	}
+}
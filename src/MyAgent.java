@@ -3,52 +3,119 @@ import java.util.ArrayList;
 import java.util.List;
 
 import agents.ArtificialAgent;
+import agents.actions.ActionsBFS;
+import agents.actions.ActionsBits;
 import game.actions.EDirection;
 import game.actions.compact.*;
+import game.actions.oop.EActionType;
+import game.board.bits.BoardBits;
 import game.board.compact.BoardCompact;
 import game.board.compact.CTile;
+import game.board.compact.PlayerNormalizer;
+import game.board.minimal.FloorIndex;
+import game.board.oop.EEntity;
+import search.ActionSink;
+import search.PackedClosedSet;
+import search.StateCodec;
 
 /**
  * Optimized Tree-DFS agent using array-based structures.
+ * <p>
+ * With the "sokoban.anytime" system property set to true, the push-level search is the anytime weighted A* of
+ * {@link AStar#searchAnytime}: it returns the best plan found before {@link #searchDeadlineMillis()}, which need not be
+ * the shortest. Without it, the level timeout does not change the search.
  */
 public class MyAgent extends ArtificialAgent {
 	protected BoardCompact board;
 	protected int searchedNodes;
 	protected boolean[][] deadSquares;
 
+	protected PushDistances pushDistances;
+	protected MacroPushes macroPushes;
+	// Null for levels whose states do not fit a floor bitset (e.g. multicolored boxes)
+	protected FloorIndex floorIndex;
+
+	// Estimate of a box that cannot be pushed to any free goal
+	protected static final int DEAD_BOX_COST = 300;
+
+	// Part of the level timeout left for executing the plan, see searchDeadlineMillis()
+	protected static final int PLAN_TIME_DIVISOR = 10;
+	// ... plus this margin for turning the search result into steps
+	protected static final long PLAN_TIME_MARGIN_MILLIS = 50;
+
+	protected boolean anytime = Boolean.getBoolean("sokoban.anytime");
+
 	// Pre-allocate arrays for better performance
-	private static final int MAX_GOALS = 10;
-	private int[][] goalCoords;
-	private int goalCount;
 	private CAction[] possibleActions;
 
 	public MyAgent() {
-		goalCoords = new int[MAX_GOALS][2];
 		// Pre-allocate array for all possible actions (moves + pushes)
 		possibleActions = new CAction[8]; // 4 moves + 4 pushes
 		int i = 0;
-		for (CMove move : CMove.getActions()) {
+		for (CMove move : CMove.getActionArray()) {
 			possibleActions[i++] = move;
 		}
-		for (CPush push : CPush.getActions()) {
+		for (CPush push : CPush.getActionArray()) {
 			possibleActions[i++] = push;
 		}
 	}
 
+	/**
+	 * Per-level analysis shared by all the searches: dead squares, push distances, macro pushes, the floor index and
+	 * the {@link EstimatedBoard} root in {@link #board}.
+	 */
+	protected void analyzeLevel(BoardCompact board) {
+		deadSquares = DeadSquareDetector.detect(board);
+		pushDistances = PushDistances.compute(board);
+		macroPushes = MacroPushes.analyze(board);
+		floorIndex = FloorIndex.forBoard(board);
+		this.board = new EstimatedBoard(board, pushDistances);
+	}
+
+	/**
+	 * When searches of the current level should give up: the level deadline less a tenth of the timeout
+	 * ({@link #PLAN_TIME_DIVISOR}) and {@link #PLAN_TIME_MARGIN_MILLIS} for executing the plan; {@link Long#MAX_VALUE}
+	 * if there is no timeout.
+	 */
+	protected long searchDeadlineMillis() {
+		if (timeoutMillis <= 0) return Long.MAX_VALUE;
+		return deadlineMillis() - timeoutMillis / PLAN_TIME_DIVISOR - PLAN_TIME_MARGIN_MILLIS;
+	}
+
 	@Override
 	protected List<EDirection> think(BoardCompact board) {
-		this.board = board;
 		searchedNodes = 0;
 		long searchStartMillis = System.currentTimeMillis();
-		deadSquares = DeadSquareDetector.detect(board);
+		analyzeLevel(board);
 
-		SokobanProblem problem = new SokobanProblem();
-		Solution2<BoardCompact, CAction> solution = AStar.search(problem);
+		// Push-level search is much faster but does not minimize the number of moves
+		List<? extends CAction> plan;
+		if (optimal) {
+			SokobanProblem problem = new SokobanProblem();
+			Solution2<BoardCompact, CAction> solution =
+					AStar.searchArena(problem, problem, new PackedClosedSet<>(problem), possibleActions);
+			plan = solution == null ? null : solution.actions;
+		} else if (anytime) {
+			// Rather a longer plan than a timeout
+			PushProblem problem = new PushProblem();
+			Solution2<BoardCompact, CWalkPush> solution =
+					AStar.searchAnytime(problem, () -> new PackedClosedSet<>(problem), searchDeadlineMillis());
+			plan = solution == null ? null : solution.actions;
+		} else {
+			PushProblem problem = new PushProblem();
+			// nodes keep the exact player position, the walks of their pushes start there
+			Solution2<BoardCompact, CWalkPush> solution =
+					AStar.searchArena(problem, problem.moves, new PackedClosedSet<>(problem), null);
+			plan = solution == null ? null : solution.actions;
+		}
 
+		// Walk paths of macro actions are expanded into single steps only here
 		List<EDirection> result = new ArrayList<>();
-		if (solution != null && !solution.actions.isEmpty()) {
-			for (CAction action : solution.actions) {
-				result.add(action.getDirection());
+		if (plan != null) {
+			for (CAction action : plan) {
+				for (EDirection dir : action.getDirections()) {
+					result.add(dir);
+				}
 			}
 		}
 
@@ -62,45 +129,217 @@ public class MyAgent extends ArtificialAgent {
 		return result.isEmpty() ? null : result;
 	}
 
-	public class SokobanProblem implements HeuristicProblem<BoardCompact, CAction> {
+	public class SokobanProblem implements InPlaceProblem<BoardCompact, CAction>, StateCodec<BoardCompact> {
+		private final FreezeDeadlockDetector freezeDetector = new FreezeDeadlockDetector(board, deadSquares);
+		private final DeadlockPatterns deadlockPatterns = DeadlockPatterns.getDefault().view();
+		// Reusable board for in-place expansion, see AStar.searchInt
+		private BoardCompact scratch;
+		// Level without player and boxes, the template of decode()
+		private BoardCompact emptyBoard;
+
+		/**
+		 * Cheapest assignment of boxes to distinct goals by {@link PushDistances}; a box that cannot reach its goal
+		 * (e.g. a box on a dead square) costs {@link #DEAD_BOX_COST}. States derived from an {@link EstimatedBoard}
+		 * update the estimate incrementally on every push.
+		 */
 		@Override
-		public double estimate(BoardCompact state) {
-			double totalEstimate = 0;
-			boolean[][] deadSquares = MyAgent.this.deadSquares;
+		public int intEstimate(BoardCompact state) {
+			if (state instanceof EstimatedBoard) {
+				return ((EstimatedBoard) state).estimate();
+			}
+			return EstimatedBoard.estimate(state, pushDistances);
+		}
 
-			// Update goals array
-			goalCount = 0;
-			for (int x = 0; x < state.width(); x++) {
-				for (int y = 0; y < state.height(); y++) {
-					if (CTile.forSomeBox(state.tile(x, y))) {
-						goalCoords[goalCount][0] = x;
-						goalCoords[goalCount][1] = y;
-						goalCount++;
+		@Override
+		public BoardCompact initialState() {
+			return board;
+		}
+
+		@Override
+		public List<CAction> actions(BoardCompact state) {
+			List<CAction> actions = new ArrayList<>(8);
+			expand(state, actions::add);
+			return actions;
+		}
+
+		@Override
+		public int expand(BoardCompact state, ActionSink<CAction> sink) {
+			// Check pre-allocated possible actions
+			int count = 0;
+			for (CAction action : possibleActions) {
+				if (action != null && action.isPossible(state)) {
+					EDirection dir = action.getDirection();
+					if (action.getType() == EActionType.PUSH
+							&& isDeadPush(state, state.playerX + dir.dX, state.playerY + dir.dY, dir)) {
+						continue;
 					}
+					sink.accept(action);
+					++count;
 				}
 			}
+			return count;
+		}
+
+		/**
+		 * Whether pushing the box at [boxX, boxY] in 'dir' leads to a dead position: onto a dead square, into
+		 * a freeze deadlock or into one of the {@link DeadlockPatterns}.
+		 */
+		public boolean isDeadPush(BoardCompact state, int boxX, int boxY, EDirection dir) {
+			return deadSquares[boxX + dir.dX][boxY + dir.dY]
+					|| freezeDetector.isDeadlock(state, boxX, boxY, dir.dX, dir.dY)
+					|| deadlockPatterns.isDeadlock(state, boxX, boxY, dir.dX, dir.dY);
+		}
+
+		@Override
+		public BoardCompact result(BoardCompact state, CAction action) {
+			BoardCompact newState = state.clone();
+			action.perform(newState);
+			return newState;
+		}
+
+		@Override
+		public BoardCompact scratch(BoardCompact state) {
+			if (scratch == null) {
+				scratch = state.clone();
+			} else {
+				scratch.copyFrom(state);
+			}
+			return scratch;
+		}
+
+		@Override
+		public void apply(BoardCompact scratch, CAction action) {
+			action.perform(scratch);
+		}
+
+		@Override
+		public void undo(BoardCompact scratch, CAction action) {
+			action.reverse(scratch);
+		}
+
+		@Override
+		public BoardCompact copy(BoardCompact scratch) {
+			return scratch.clone();
+		}
+
+		@Override
+		public boolean isGoal(BoardCompact state) {
+			return state.isVictory();
+		}
+
+		@Override
+		public int intCost(BoardCompact state, CAction action) {
+			// ties between moves and pushes are broken by the lower estimate in AStar.searchInt
+			return 1;
+		}
+
+		@Override
+		public int length() {
+			return floorIndex != null ? floorIndex.encodedLength() : 1 + board.boxCount;
+		}
+
+		@Override
+		public long fingerprint(BoardCompact state) {
+			return state.zobristKey();
+		}
 
-			// Calculate distances using pre-allocated arrays
+		@Override
+		public void encode(BoardCompact state, int[] dest, int offset) {
+			encode(state, state.playerX, state.playerY, dest, offset);
+		}
+
+		/**
+		 * Encoding of 'state' with the player moved to [playerX;playerY]: with a {@link FloorIndex} the player floor index
+		 * followed by the box bitset, otherwise the player cell followed by box cells (tagged with box number) in scan order.
+		 */
+		void encode(BoardCompact state, int playerX, int playerY, int[] dest, int offset) {
+			if (floorIndex != null) {
+				floorIndex.encode(state, playerX, playerY, dest, offset);
+				return;
+			}
+			int height = state.height();
+			dest[offset++] = playerX * height + playerY;
 			for (int x = 0; x < state.width(); x++) {
-				for (int y = 0; y < state.height(); y++) {
-					if (CTile.isSomeBox(state.tile(x, y))) {
-						// Check for dead squares
-						if (deadSquares[x][y] && !CTile.forSomeBox(state.tile(x, y))) {
-							totalEstimate += 300;
-							continue;
-						}
+				for (int y = 0; y < height; y++) {
+					int tile = state.tile(x, y);
+					if (CTile.isSomeBox(tile)) {
+						dest[offset++] = (x * height + y) << 3 | CTile.getBoxNum(tile);
+					}
+				}
+			}
+		}
 
-						// Find minimum Manhattan distance to goals
-						double minDistance = Double.MAX_VALUE;
-						for (int i = 0; i < goalCount; i++) {
-							double distance = Math.abs(x - goalCoords[i][0]) + Math.abs(y - goalCoords[i][1]);
-							minDistance = Math.min(minDistance, distance);
+		@Override
+		public BoardCompact decode(int[] src, int offset) {
+			if (emptyBoard == null) {
+				emptyBoard = board.clone();
+				for (int x = 0; x < emptyBoard.width(); x++) {
+					for (int y = 0; y < emptyBoard.height(); y++) {
+						int tile = emptyBoard.tiles[x][y];
+						if (CTile.isSomeBox(tile) || CTile.isPlayer(tile)) {
+							emptyBoard.tiles[x][y] = (tile & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.NONE.getFlag();
 						}
-						totalEstimate += minDistance;
 					}
 				}
 			}
-			return totalEstimate;
+			BoardCompact state = emptyBoard.clone();
+			int height = state.height();
+
+			if (floorIndex != null) {
+				state.playerX = floorIndex.x(src[offset]);
+				state.playerY = floorIndex.y(src[offset]);
+			} else {
+				state.playerX = src[offset] / height;
+				state.playerY = src[offset] % height;
+			}
+			int tile = state.tiles[state.playerX][state.playerY];
+			state.tiles[state.playerX][state.playerY] = (tile & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.PLAYER.getFlag();
+
+			state.boxInPlaceCount = 0;
+			if (floorIndex != null) {
+				for (int i = 0; i < floorIndex.size(); i++) {
+					if (floorIndex.hasEncodedBox(src, offset, i)) placeBox(state, floorIndex.x(i), floorIndex.y(i), 1);
+				}
+			} else {
+				for (int i = 1; i <= state.boxCount; i++) {
+					int cell = src[offset + i] >>> 3;
+					placeBox(state, cell / height, cell % height, src[offset + i] & 7);
+				}
+			}
+			state.invalidateHash();
+			if (state instanceof EstimatedBoard) {
+				// full matching once, so that the children of the decoded state update it incrementally
+				((EstimatedBoard) state).estimate();
+			}
+			return state;
+		}
+
+		private void placeBox(BoardCompact state, int x, int y, int boxNum) {
+			// BOX_1 .. BOX_6 are consecutive flag bits
+			int tile = (state.tiles[x][y] & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.BOX_1.getFlag() << (boxNum - 1);
+			state.tiles[x][y] = tile;
+			if (CTile.forBox(boxNum, tile) || CTile.forAnyBox(tile)) ++state.boxInPlaceCount;
+		}
+	}
+
+	/**
+	 * Push-level search: every action is a {@link CWalkPush} found by {@link ActionsBits} (by {@link ActionsBFS} on
+	 * levels too wide for a bitboard), and states that differ only in the player position within the same reachable
+	 * region are duplicates.
+	 */
+	public class PushProblem implements InPlaceProblem<BoardCompact, CWalkPush>, StateCodec<BoardCompact> {
+		private final SokobanProblem moves = new SokobanProblem();
+		private final ActionsBFS actionsBFS = new ActionsBFS();
+		private final ActionsBits actionsBits = BoardBits.fits(board) ? new ActionsBits(board) : null;
+
+		private final PlayerNormalizer normalizer = new PlayerNormalizer();
+		// corrals are found on bitboards, wider levels are searched without
+		private final CorralPruner corralPruner = BoardBits.fits(board) ? new CorralPruner(board, deadSquares) : null;
+		private final MacroPushes macros = macroPushes == null ? null : macroPushes.view();
+
+		@Override
+		public int intEstimate(BoardCompact state) {
+			return moves.intEstimate(state);
 		}
 
 		@Override
@@ -109,35 +348,89 @@ public class MyAgent extends ArtificialAgent {
 		}
 
 		@Override
-		public List<CAction> actions(BoardCompact state) {
-			// Use ArrayList with initial capacity for better performance
-			List<CAction> actions = new ArrayList<>(8);
+		public List<CWalkPush> actions(BoardCompact state) {
+			List<CWalkPush> actions = actionsBits != null ? actionsBits.findActions(state) : actionsBFS.findActions(state);
 
-			// Check pre-allocated possible actions
-			for (CAction action : possibleActions) {
-				if (action != null && action.isPossible(state)) {
-					actions.add(action);
-				}
+			// Never push a box onto a dead square or into a freeze deadlock, nor fill goal rooms out of order
+			List<CWalkPush> result = new ArrayList<>(actions.size());
+			for (CWalkPush action : actions) {
+				CWalk walk = action.getWalk();
+				EDirection dir = action.getPushDirection();
+				int boxX = walk.getX() + dir.dX, boxY = walk.getY() + dir.dY;
+				if (moves.isDeadPush(state, boxX, boxY, dir)) continue;
+				if (macros != null && macros.isOutOfOrder(state, boxX, boxY, dir)) continue;
+				result.add(action);
+			}
+			if (corralPruner != null) {
+				result = corralPruner.prune(state, result);
 			}
 
-			return actions;
+			// Push through tunnels and into goal rooms in one go
+			if (macros != null) {
+				for (int i = 0; i < result.size(); i++) {
+					result.set(i, macros.extend(state, result.get(i), moves::isDeadPush));
+				}
+			}
+			return result;
 		}
 
 		@Override
-		public BoardCompact result(BoardCompact state, CAction action) {
+		public BoardCompact result(BoardCompact state, CWalkPush action) {
 			BoardCompact newState = state.clone();
 			action.perform(newState);
 			return newState;
 		}
 
+		@Override
+		public BoardCompact scratch(BoardCompact state) {
+			return moves.scratch(state);
+		}
+
+		@Override
+		public void apply(BoardCompact scratch, CWalkPush action) {
+			action.perform(scratch);
+		}
+
+		@Override
+		public void undo(BoardCompact scratch, CWalkPush action) {
+			action.reverse(scratch);
+		}
+
+		@Override
+		public BoardCompact copy(BoardCompact scratch) {
+			return scratch.clone();
+		}
+
 		@Override
 		public boolean isGoal(BoardCompact state) {
 			return state.isVictory();
 		}
 
 		@Override
-		public double cost(BoardCompact state, CAction action) {
-			return (action instanceof CPush) ? 1.1 : 1.0;
+		public int intCost(BoardCompact state, CWalkPush action) {
+			return action.getPushes();
+		}
+
+		@Override
+		public int length() {
+			return moves.length();
+		}
+
+		@Override
+		public long fingerprint(BoardCompact state) {
+			return normalizer.normalizedKey(state);
+		}
+
+		@Override
+		public void encode(BoardCompact state, int[] dest, int offset) {
+			int normalized = normalizer.normalize(state);
+			moves.encode(state, PlayerNormalizer.getX(normalized), PlayerNormalizer.getY(normalized), dest, offset);
+		}
+
+		@Override
+		public BoardCompact decode(int[] src, int offset) {
+			// the player stands on the normalized cell of its region
+			return moves.decode(src, offset);
 		}
 	}
 }
@@ -0,0 +1,25 @@
+import java.util.List;
+
+import search.ActionSink;
+
+// S = state type, A = action type
+interface Problem<S, A> {
+    S initialState();
+
+    List<A> actions(S state);
+
+    S result(S state, A action);
+
+    boolean isGoal(S state);
+
+    double cost(S state, A action);
+
+    // Feeds the actions of 'state' to 'sink' and returns how many there were; override it to
+    // enumerate the actions without allocating a list per expansion
+    default int expand(S state, ActionSink<A> sink) {
+        List<A> actions = actions(state);
+        for (A action : actions)
+            sink.accept(action);
+        return actions.size();
+    }
+}
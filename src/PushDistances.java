@@ -0,0 +1,105 @@
+import java.util.Arrays;
+
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+
+/**
+ * Per-goal push distances: for every goal, the least number of pushes needed to get a box from each cell onto that goal
+ * on the empty board (walls only, other boxes ignored). Computed once per level by a reverse BFS that pulls the box away
+ * from the goal, so every entry is a lower bound on the real number of pushes.
+ */
+public class PushDistances {
+    public static final int UNREACHABLE = Integer.MAX_VALUE;
+
+    private static final int[][] DIRECTIONS = { { 1, 0 }, { -1, 0 }, { 0, 1 }, { 0, -1 } };
+
+    private final int goalCount;
+    private final int[] goalX, goalY;
+    private final int[] goalTile; // place flags of the goal, for box / goal compatibility
+    private final int[][][] distances; // [goal][x][y]
+
+    public static PushDistances compute(BoardCompact board) {
+        return new PushDistances(board);
+    }
+
+    private PushDistances(BoardCompact board) {
+        int w = board.width();
+        int h = board.height();
+
+        int count = 0;
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                if (CTile.forSomeBox(board.tile(x, y))) count++;
+            }
+        }
+        goalCount = count;
+        goalX = new int[count];
+        goalY = new int[count];
+        goalTile = new int[count];
+        distances = new int[count][][];
+
+        int goal = 0;
+        int[] queue = new int[w * h];
+        for (int x = 0; x < w; x++) {
+            for (int y = 0; y < h; y++) {
+                if (!CTile.forSomeBox(board.tile(x, y))) continue;
+                goalX[goal] = x;
+                goalY[goal] = y;
+                goalTile[goal] = board.tile(x, y);
+                distances[goal] = pullDistances(board, x, y, queue);
+                goal++;
+            }
+        }
+    }
+
+    /**
+     * BFS from the goal; a box at C can come from A = C - d if the player can stand at A - d to push it.
+     */
+    private static int[][] pullDistances(BoardCompact board, int goalX, int goalY, int[] queue) {
+        int w = board.width();
+        int h = board.height();
+        int[][] dist = new int[w][h];
+        for (int[] column : dist) Arrays.fill(column, UNREACHABLE);
+
+        int head = 0, tail = 0;
+        dist[goalX][goalY] = 0;
+        queue[tail++] = goalX * h + goalY;
+        while (head < tail) {
+            int cx = queue[head] / h;
+            int cy = queue[head++] % h;
+            for (int[] d : DIRECTIONS) {
+                int ax = cx - d[0];
+                int ay = cy - d[1];
+                int px = ax - d[0];
+                int py = ay - d[1];
+                if (px < 0 || px >= w || py < 0 || py >= h) continue;
+                if (CTile.isWall(board.tile(ax, ay)) || CTile.isWall(board.tile(px, py))) continue;
+                if (dist[ax][ay] != UNREACHABLE) continue;
+                dist[ax][ay] = dist[cx][cy] + 1;
+                queue[tail++] = ax * h + ay;
+            }
+        }
+        return dist;
+    }
+
+    public int goalCount() {
+        return goalCount;
+    }
+
+    public int goalX(int goal) {
+        return goalX[goal];
+    }
+
+    public int goalY(int goal) {
+        return goalY[goal];
+    }
+
+    /**
+     * Pushes needed to get box 'boxNum' from [x, y] onto 'goal', or {@link #UNREACHABLE} (also for a goal of another color).
+     */
+    public int distance(int goal, int boxNum, int x, int y) {
+        int tile = goalTile[goal];
+        if (!CTile.forAnyBox(tile) && !CTile.forBox(boxNum, tile)) return UNREACHABLE;
+        return distances[goal][x][y];
+    }
+}
@@ -0,0 +1,219 @@
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+// Memory-bounded A* after SMA*: at most about 'maxNodes' search nodes are kept (a node is
+// fully expanded before the budget is enforced, so it may be exceeded by one branching
+// factor). When the budget is hit, the leaf with the worst f - the shallowest one on ties -
+// is evicted and its f is remembered by its parent in the slot of that child. Every node's
+// f is backed up as the least f of its children, in memory or forgotten, so the search
+// knows where the evicted subtrees would lead and regenerates a forgotten child once it is
+// the most promising node again. Solutions are optimal for admissible estimates if the
+// optimal path fits the budget; nodes at the depth limit the budget allows are dead ends.
+//
+// A state already in memory with a lower or equal g is not generated again.
+class SMAStar<S, A> {
+    private static final double INF = Double.POSITIVE_INFINITY;
+
+    public static <S, A> Solution2<S, A> search(HeuristicProblem<S, A> prob, int maxNodes) {
+        return new SMAStar<S, A>(prob, maxNodes).run();
+    }
+
+    private static class Node<S, A> {
+        final S state;
+        final Node<S, A> parent;
+        final A action;
+        final int slot;        // index of the action in the parent's actions
+        final double g;
+        final int depth;
+        final long id;
+
+        double f;
+        double key;            // open list key, see reopen()
+        Node<S, A>[] children; // null until expanded
+        double[] forgotten;    // f of evicted children, NaN for children in memory, INF for pruned ones
+        int inMemory;          // children in memory
+
+        Node(S state, Node<S, A> parent, A action, int slot, double g, long id) {
+            this.state = state;
+            this.parent = parent;
+            this.action = action;
+            this.slot = slot;
+            this.g = g;
+            this.depth = parent == null ? 0 : parent.depth + 1;
+            this.id = id;
+        }
+
+        // Least f of the children that have to be regenerated
+        double pending() {
+            double min = INF;
+            for (double value : forgotten)
+                if (value < min)
+                    min = value;
+            return min;
+        }
+    }
+
+    private final HeuristicProblem<S, A> prob;
+    private final int maxNodes;
+    private long nextId;
+    private int used;
+
+    // Nodes that can be expanded (or can regenerate a child), best first; deeper ones win ties
+    private final TreeSet<Node<S, A>> open = new TreeSet<>(Comparator.<Node<S, A>>comparingDouble(n -> n.key)
+            .thenComparing(Comparator.comparingInt((Node<S, A> n) -> n.depth).reversed())
+            .thenComparingLong(n -> n.id));
+    // Nodes without children in memory, worst first; shallower ones win ties
+    private final TreeSet<Node<S, A>> leaves = new TreeSet<>(Comparator.<Node<S, A>>comparingDouble(n -> -n.f)
+            .thenComparingInt(n -> n.depth)
+            .thenComparingLong(n -> n.id));
+    // Nodes in memory by state, for the duplicate check
+    private final Map<S, Node<S, A>> memory = new HashMap<>();
+
+    private SMAStar(HeuristicProblem<S, A> prob, int maxNodes) {
+        this.prob = prob;
+        this.maxNodes = Math.max(maxNodes, 2);
+    }
+
+    private Solution2<S, A> run() {
+        S initial = prob.initialState();
+        Node<S, A> root = new Node<S, A>(initial, null, null, -1, 0, nextId++);
+        root.f = prob.estimate(initial);
+        used = 1;
+        memory.put(initial, root);
+        leaves.add(root);
+        reopen(root);
+
+        while (!open.isEmpty()) {
+            if (Thread.currentThread().isInterrupted())
+                return null;
+
+            Node<S, A> best = open.first();
+            if (best.children == null) {
+                if (prob.isGoal(best.state))
+                    return makePath(best);
+                expand(best);
+            } else {
+                regenerate(best);
+            }
+
+            while (used > maxNodes && evict())
+                ;
+        }
+        return null;
+    }
+
+    private void expand(Node<S, A> node) {
+        List<A> actions = prob.actions(node.state);
+        node.children = newNodes(actions.size());
+        node.forgotten = new double[actions.size()];
+        Arrays.fill(node.forgotten, INF);
+        // A path longer than the budget could never be completed
+        if (node.depth + 1 < maxNodes) {
+            for (int i = 0; i < actions.size(); ++i)
+                generate(node, actions.get(i), i, node.f);
+        }
+        adopted(node);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <S, A> Node<S, A>[] newNodes(int length) {
+        return (Node<S, A>[]) new Node<?, ?>[length];
+    }
+
+    // Brings back the most promising forgotten child of 'node'; children in memory (NaN) and
+    // pruned ones (INF) are skipped, open only holds nodes with a finite pending() anyway
+    private void regenerate(Node<S, A> node) {
+        int slot = -1;
+        for (int i = 0; i < node.forgotten.length; ++i)
+            if (!Double.isNaN(node.forgotten[i]) && (slot < 0 || node.forgotten[i] < node.forgotten[slot]))
+                slot = i;
+        if (slot < 0 || node.forgotten[slot] == INF)
+            throw new IllegalStateException("no forgotten child to regenerate");
+        double f = node.forgotten[slot];
+        node.forgotten[slot] = INF;
+        generate(node, prob.actions(node.state).get(slot), slot, f);
+        adopted(node);
+    }
+
+    private void generate(Node<S, A> parent, A action, int slot, double minF) {
+        S state = prob.result(parent.state, action);
+        double g = parent.g + prob.cost(parent.state, action);
+        Node<S, A> known = memory.get(state);
+        if (known != null && known.g <= g)
+            return;
+
+        Node<S, A> child = new Node<S, A>(state, parent, action, slot, g, nextId++);
+        child.f = Math.max(minF, g + prob.estimate(state));  // pathmax
+        parent.children[slot] = child;
+        parent.forgotten[slot] = Double.NaN;
+        ++parent.inMemory;
+        ++used;
+        memory.put(state, child);
+        leaves.add(child);
+        reopen(child);
+    }
+
+    // Bookkeeping after the children of 'node' changed
+    private void adopted(Node<S, A> node) {
+        if (node.inMemory > 0)
+            leaves.remove(node);
+        reopen(node);
+        backup(node);
+    }
+
+    // f of a node is the least f of its children; propagates changes up the tree
+    private void backup(Node<S, A> node) {
+        for (; node != null && node.children != null; node = node.parent) {
+            double f = node.pending();
+            for (Node<S, A> child : node.children)
+                if (child != null && child.f < f)
+                    f = child.f;
+            if (f == node.f)
+                return;
+            boolean leaf = leaves.remove(node);
+            node.f = f;
+            if (leaf)
+                leaves.add(node);
+        }
+    }
+
+    private void reopen(Node<S, A> node) {
+        open.remove(node);
+        node.key = node.children == null ? node.f : node.pending();
+        if (node.key < INF)
+            open.add(node);
+    }
+
+    // Drops the worst leaf; false if only the root is left
+    private boolean evict() {
+        Node<S, A> worst = leaves.first();
+        if (worst.parent == null)
+            return false;
+
+        leaves.remove(worst);
+        open.remove(worst);
+        if (memory.get(worst.state) == worst)
+            memory.remove(worst.state);
+        --used;
+
+        Node<S, A> parent = worst.parent;
+        parent.children[worst.slot] = null;
+        parent.forgotten[worst.slot] = worst.f;
+        if (--parent.inMemory == 0)
+            leaves.add(parent);
+        reopen(parent);
+        return true;
+    }
+
+    private Solution2<S, A> makePath(Node<S, A> goal) {
+        LinkedList<A> actions = new LinkedList<>();
+        for (Node<S, A> node = goal; node.parent != null; node = node.parent)
+            actions.addFirst(node.action);
+        return new Solution2<S, A>(actions, goal.state, goal.g);
+    }
+}
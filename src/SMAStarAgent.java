@@ -0,0 +1,58 @@
+import static java.lang.System.out;
+import java.util.ArrayList;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.*;
+import game.board.compact.BoardCompact;
+
+/**
+ * {@link MyAgent} running the memory-bounded {@link SMAStar}. The node budget is the "sokoban.sma.nodes" system property
+ * or, failing that, "sokoban.sma.bytes" (default: half of the maximum heap) divided by the estimated size of a node.
+ */
+public class SMAStarAgent extends MyAgent {
+	// Search node, its bookkeeping (open / leaf sets, state map) and the board object, without the tiles
+	protected static final int NODE_OVERHEAD_BYTES = 320;
+
+	@Override
+	protected List<EDirection> think(BoardCompact board) {
+		long searchStartMillis = System.currentTimeMillis();
+		analyzeLevel(board);
+		int maxNodes = nodeBudget(board);
+
+		List<? extends CAction> plan;
+		if (optimal) {
+			Solution2<BoardCompact, CAction> solution = SMAStar.search(new SokobanProblem(), maxNodes);
+			plan = solution == null ? null : solution.actions;
+		} else {
+			Solution2<BoardCompact, CWalkPush> solution = SMAStar.search(new PushProblem(), maxNodes);
+			plan = solution == null ? null : solution.actions;
+		}
+
+		List<EDirection> result = new ArrayList<>();
+		if (plan != null) {
+			for (CAction action : plan) {
+				for (EDirection dir : action.getDirections()) {
+					result.add(dir);
+				}
+			}
+		}
+
+		if (verbose) {
+			out.println("Node budget: " + maxNodes);
+			out.println("Search took: " + (System.currentTimeMillis() - searchStartMillis) + " ms");
+		}
+
+		return result.isEmpty() ? null : result;
+	}
+
+	protected int nodeBudget(BoardCompact board) {
+		String nodes = System.getProperty("sokoban.sma.nodes");
+		if (nodes != null) return Integer.parseInt(nodes);
+
+		long bytes = Long.getLong("sokoban.sma.bytes", Runtime.getRuntime().maxMemory() / 2);
+		// int[width][height] tiles: an array of row arrays, 16 bytes of header each
+		long nodeBytes = NODE_OVERHEAD_BYTES + 16 + board.width() * (20L + 4 * board.height());
+		return (int) Math.min(Integer.MAX_VALUE, bytes / nodeBytes);
+	}
+}
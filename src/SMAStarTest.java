@@ -0,0 +1,70 @@
+import java.io.File;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.CMove;
+import game.actions.compact.CPush;
+import game.board.compact.BoardCompact;
+import game.board.oop.Board;
+
+// Runs SMAStarAgent with node budgets small enough that the search keeps evicting and
+// regenerating nodes, and checks every plan: it must be legal, solve the level and, in
+// optimal mode, be as short as the plan of the unbounded MyAgent.
+public class SMAStarTest {
+    // A move-level plan is about 100 nodes deep, a push-level one about 10
+    static final int MOVE_LEVELS = 5, PUSH_LEVELS = 4;
+    static final int[] MOVE_BUDGETS = { 120 };
+    static final int[] PUSH_BUDGETS = { 12, 25 };
+
+    static int replay(BoardCompact board, List<EDirection> plan) {
+        BoardCompact replay = board.clone();
+        for (EDirection dir : plan) {
+            CPush push = CPush.getAction(dir);
+            CMove move = CMove.getAction(dir);
+            if (push.isPossible(replay)) push.perform(replay);
+            else if (move.isPossible(replay)) move.perform(replay);
+            else throw new RuntimeException("illegal step " + dir);
+        }
+        if (!replay.isVictory())
+            throw new RuntimeException("plan does not solve the level");
+        return plan.size();
+    }
+
+    public static void main(String[] args) {
+        File levels = new File("levels/Aymeric_du_Peloux_1_Minicosmos.sok");
+        if (!levels.canRead()) {
+            System.out.printf("can't find level file %s\n", levels.getAbsolutePath());
+            return;
+        }
+
+        for (boolean optimal : new boolean[] { true, false }) {
+            System.out.printf("== %s ==\n", optimal ? "optimal" : "push-level");
+            for (int i = 1; i <= (optimal ? MOVE_LEVELS : PUSH_LEVELS); ++i) {
+                BoardCompact board = Board.fromFileSok(levels, i).makeBoardCompact();
+
+                MyAgent reference = new MyAgent();
+                reference.init(optimal, false);
+                int best = replay(board, reference.think(board));
+
+                for (int budget : optimal ? MOVE_BUDGETS : PUSH_BUDGETS) {
+                    System.setProperty("sokoban.sma.nodes", Integer.toString(budget));
+                    SMAStarAgent agent = new SMAStarAgent();
+                    agent.init(optimal, false);
+                    long start = System.currentTimeMillis();
+                    List<EDirection> plan = agent.think(board);
+                    long millis = System.currentTimeMillis() - start;
+                    if (plan == null) {
+                        System.out.printf("level %d, %d nodes: not found in %d ms\n", i, budget, millis);
+                        continue;
+                    }
+                    int steps = replay(board, plan);
+                    if (optimal && steps != best)
+                        throw new RuntimeException("level " + i + ": " + steps + " steps, optimum is " + best);
+                    System.out.printf("level %d, %d nodes: %d steps (%d) in %d ms\n", i, budget, steps, best, millis);
+                }
+            }
+        }
+        System.clearProperty("sokoban.sma.nodes");
+        System.out.println("---// TEST OK //---");
+    }
+}
@@ -0,0 +1,28 @@
+import java.util.List;
+
+class Solution2<S, A> {
+    public List<A> actions; // series of actions from start state to goal state
+    public S goalState; // goal state that was reached
+    public double pathCost; // total cost from start state to goal
+
+    public Solution2(List<A> actions, S goalState, double pathCost) {
+        this.actions = actions;
+        this.goalState = goalState;
+        this.pathCost = pathCost;
+    }
+
+    // Return true if this is a valid solution to the given problem.
+    public boolean isValid(Problem<S, A> prob) {
+        S state = prob.initialState();
+        double cost = 0.0;
+
+        // Check that the actions actually lead from the problem's initial state to the
+        // goal.
+        for (A action : actions) {
+            cost += prob.cost(state, action);
+            state = prob.result(state, action);
+        }
+
+        return state.equals(goalState) && prob.isGoal(goalState) && pathCost == cost;
+    }
+}
@@ -19,18 +19,40 @@ public abstract class ArtificialAgent implements IAgent {
     private RuntimeException agentException;
     
     protected boolean optimal, verbose;
+    
+    /**
+     * Time limit for the current level; non-positive number == no timeout.
+     */
+    protected long timeoutMillis;
+    
+    private long levelStartMillis;
 
     @Override
     public void init(boolean optimal, boolean verbose) {
         this.optimal = optimal;
         this.verbose = verbose;
     }
+    
+    @Override
+    public void setTimeout(long timeoutMillis) {
+    	this.timeoutMillis = timeoutMillis;
+    }
 
 	@Override
 	public void newLevel() {
 		actions = null;
 		board = null;
 		agentException = null;
+		levelStartMillis = System.currentTimeMillis();
+	}
+	
+	/**
+	 * When the time for the current level runs out (in {@link System#currentTimeMillis()} terms);
+	 * {@link Long#MAX_VALUE} if there is no timeout.
+	 * @return
+	 */
+	protected long deadlineMillis() {
+		return timeoutMillis > 0 ? levelStartMillis + timeoutMillis : Long.MAX_VALUE;
 	}
 
 	@Override
@@ -8,6 +8,8 @@ import game.actions.compact.CAction;
 import game.actions.compact.CMove;
 import game.actions.compact.CPush;
 import game.board.compact.BoardCompact;
+import search.ActionBuffer;
+import search.ActionStack;
 
 /**
  * The simplest Tree-DFS implementation
@@ -25,12 +27,18 @@ public class DFS1Agent extends ArtificialAgent {
 	
 	protected long searchStartMillis;
 	
+	/**
+	 * Reusable action buffers, one per search level.
+	 */
+	protected ActionStack<CAction> actionStack;
+	
 	@Override
 	protected List<EDirection> think(BoardCompact board) {
 		// INIT SEARCH
 		this.board = board;
 		this.result = new ArrayList<EDirection>();
 		this.solutionFound = false;
+		this.actionStack = new ActionStack<CAction>();
 		this.searchedNodes = 0;		
 		
 		// FIRE THE SEARCH
@@ -70,21 +78,22 @@ public class DFS1Agent extends ArtificialAgent {
 		
 		// COLLECT POSSIBLE ACTIONS
 		
-		List<CAction> actions = new ArrayList<CAction>(4);
+		ActionBuffer<CAction> actions = actionStack.at(level);
 		
-		for (CMove move : CMove.getActions()) {
+		for (CMove move : CMove.getActionArray()) {
 			if (move.isPossible(board)) {
-				actions.add(move);
+				actions.accept(move);
 			}
 		}
-		for (CPush push : CPush.getActions()) {
+		for (CPush push : CPush.getActionArray()) {
 			if (push.isPossible(board)) {
-				actions.add(push);
+				actions.accept(push);
 			}
 		}
 		
 		// TRY ACTIONS
-		for (CAction action : actions) {
+		for (int i = 0; i < actions.size(); ++i) {
+			CAction action = actions.get(i);
 			// PERFORM THE ACTION
 			result.add(action.getDirection());
 			action.perform(board);
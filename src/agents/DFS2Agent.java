@@ -9,6 +9,8 @@ import game.actions.compact.CMove;
 import game.actions.compact.CPush;
 import game.actions.oop.EActionType;
 import game.board.compact.BoardCompact;
+import search.ActionBuffer;
+import search.ActionStack;
 
 /**
  * Tree-DFS update that forbids the search to immediately return to the previous state effectively cutting at least 1/4 of all "move" search nodes;
@@ -28,12 +30,18 @@ public class DFS2Agent extends ArtificialAgent {
 	
 	protected long searchStartMillis;
 	
+	/**
+	 * Reusable action buffers, one per search level.
+	 */
+	protected ActionStack<CAction> actionStack;
+	
 	@Override
 	protected List<EDirection> think(BoardCompact board) {
 		// INIT SEARCH
 		this.board = board;
 		this.result = new ArrayList<EDirection>();
 		this.solutionFound = false;
+		this.actionStack = new ActionStack<CAction>();
 		
 		// FIRE THE SEARCH
 		
@@ -74,27 +82,28 @@ public class DFS2Agent extends ArtificialAgent {
 		
 		// COLLECT POSSIBLE ACTIONS
 		
-		List<CAction> actions = new ArrayList<CAction>(4);
+		ActionBuffer<CAction> actions = actionStack.at(level);
 		
 		// TRY "PUSH" FIRST ... that's what we are here for, right?
-		for (CPush push : CPush.getActions()) {
+		for (CPush push : CPush.getActionArray()) {
 			if (push.isPossible(board)) {
-				actions.add(push);
+				actions.accept(push);
 			}
 		}
-		for (CMove move : CMove.getActions()) {
+		for (CMove move : CMove.getActionArray()) {
 			if (move.getDirection() == previousMove.opposite()) {
 				// DO NOT CONSIDER THE ACTION THE MOVES BACK
 				continue;
 			}
 			if (move.isPossible(board)) {
-				actions.add(move);
+				actions.accept(move);
 			}
 		}
 		
 		
 		// TRY ACTIONS
-		for (CAction action : actions) {
+		for (int i = 0; i < actions.size(); ++i) {
+			CAction action = actions.get(i);
 			// PERFORM THE ACTION
 			result.add(action.getDirection());
 			action.perform(board);
@@ -11,6 +11,8 @@ import game.actions.compact.CAction;
 import game.actions.compact.CMove;
 import game.actions.compact.CPush;
 import game.board.compact.BoardCompact;
+import search.ActionBuffer;
+import search.ActionStack;
 
 /**
  * Multi-threaded version of {@link DFS1Agent}
@@ -97,6 +99,11 @@ public class MTDFS1Agent extends ArtificialAgent {
 
 		private int spareThreads;
 		
+		/**
+		 * Reusable action buffers of this thread, one per search level.
+		 */
+		private final ActionStack<CAction> actionStack = new ActionStack<CAction>();
+		
 		public DFS1Thread(BoardCompact board, int level, int spareThreads) {
 			super("DFSThread");
 			this.board = board;
@@ -115,19 +122,20 @@ public class MTDFS1Agent extends ArtificialAgent {
 				return;
 			}
 			
-			List<CAction> actions = new ArrayList<CAction>(4);
+			ActionBuffer<CAction> actions = actionStack.at(level);
 			
 			// cutoff "single action option"
 			while (true) {
+				actions.clear();
 			
-				for (CMove move : CMove.getActions()) {
+				for (CMove move : CMove.getActionArray()) {
 					if (move.isPossible(board)) {
-						actions.add(move);
+						actions.accept(move);
 					}
 				}
-				for (CPush push : CPush.getActions()) {
+				for (CPush push : CPush.getActionArray()) {
 					if (push.isPossible(board)) {
-						actions.add(push);
+						actions.accept(push);
 					}
 				}
 			
@@ -145,14 +153,15 @@ public class MTDFS1Agent extends ArtificialAgent {
 			Map<DFS1Thread, EDirection> threads = new HashMap<DFS1Thread, EDirection>();
 			
 			// LAUNCH SPARE THREADS, leave some action to be investigated by this thread
-			while (spareThreads > 0 && actions.size() > 1) {
-				EDirection dir = actions.get(0).getDirection();
+			int first = 0;
+			while (spareThreads > 0 && actions.size() - first > 1) {
+				EDirection dir = actions.get(first).getDirection();
 				BoardCompact threadBoard = board.clone();
-				actions.get(0).perform(threadBoard);
+				actions.get(first).perform(threadBoard);
 				
 				int nextSpareThreads;
 				// DECIDE ON NUMBER OF THREADS GIVEN TO THE NEXT DFSThread TO USE
-				if      (actions.size() == 2) nextSpareThreads = spareThreads-1;
+				if      (actions.size() - first == 2) nextSpareThreads = spareThreads-1;
 				else if (spareThreads > 2)    nextSpareThreads = 1;
 				else                          nextSpareThreads = 0;
 				
@@ -163,11 +172,11 @@ public class MTDFS1Agent extends ArtificialAgent {
 				
 				// PREPARE NEXT ITERATION
 				spareThreads = spareThreads - 1 - nextSpareThreads;
-				actions.remove(0);
+				++first;
 			}
 			
 			// DFS THE REST OF ACTIONS
-			dfs(actions, level);
+			dfs(actions, first, level);
 			
 			if (solutionFound) {
 				// SOLUTION FOUND HERE...
@@ -207,29 +216,30 @@ public class MTDFS1Agent extends ArtificialAgent {
 				return false; // SOLUTION ALREADY FOUND IN DIFFERENT THREAD
 			}
 			
-			List<CAction> actions = new ArrayList<CAction>(4);
+			ActionBuffer<CAction> actions = actionStack.at(level);
 			
-			for (CMove move : CMove.getActions()) {
+			for (CMove move : CMove.getActionArray()) {
 				if (move.isPossible(board)) {
-					actions.add(move);
+					actions.accept(move);
 				}
 			}
-			for (CPush push : CPush.getActions()) {
+			for (CPush push : CPush.getActionArray()) {
 				if (push.isPossible(board)) {
-					actions.add(push);
+					actions.accept(push);
 				}
 			}
 			
-			return dfs(actions, level);
+			return dfs(actions, 0, level);
 		}
 		
-		private boolean dfs(List<CAction> actions, int level) {
+		private boolean dfs(ActionBuffer<CAction> actions, int first, int level) {
 			if (level <= 0) return false; // DEPTH-LIMITED
 			
 			MTDFS1Agent.this.searchedNodes.incrementAndGet();
 			
 			// TRY ACTIONS
-			for (CAction action : actions) {
+			for (int i = first; i < actions.size(); ++i) {
+				CAction action = actions.get(i);
 				if (MTDFS1Agent.this.solutionFound) {
 					return false; // SOLUTION ALREADY FOUND IN DIFFERENT THREAD
 				}
@@ -12,6 +12,8 @@ import game.actions.compact.CMove;
 import game.actions.compact.CPush;
 import game.actions.oop.EActionType;
 import game.board.compact.BoardCompact;
+import search.ActionBuffer;
+import search.ActionStack;
 
 /**
  * Multi-threaded version of {@link DFS2Agent}
@@ -97,6 +99,11 @@ public class MTDFS2Agent extends ArtificialAgent {
 		private int level;
 
 		private int spareThreads;
+		
+		/**
+		 * Reusable action buffers of this thread, one per search level.
+		 */
+		private final ActionStack<CAction> actionStack = new ActionStack<CAction>();
 
 		private EDirection previousMove;
 		
@@ -119,23 +126,24 @@ public class MTDFS2Agent extends ArtificialAgent {
 				return;
 			}
 			
-			List<CAction> actions = new ArrayList<CAction>(4);
+			ActionBuffer<CAction> actions = actionStack.at(level);
 			
 			// cutoff "single action option"
 			while (true) {
+				actions.clear();
 			
-				for (CPush push : CPush.getActions()) {
+				for (CPush push : CPush.getActionArray()) {
 					if (push.isPossible(board)) {
-						actions.add(push);
+						actions.accept(push);
 					}
 				}
-				for (CMove move : CMove.getActions()) {
+				for (CMove move : CMove.getActionArray()) {
 					if (move.getDirection() == previousMove.opposite()) {
 						// DO NOT CONSIDER THE ACTION THE MOVES BACK
 						continue;
 					}
 					if (move.isPossible(board)) {
-						actions.add(move);
+						actions.accept(move);
 					}
 				}
 			
@@ -153,14 +161,15 @@ public class MTDFS2Agent extends ArtificialAgent {
 			Map<DFS2Thread, EDirection> threads = new HashMap<DFS2Thread, EDirection>();
 			
 			// LAUNCH SPARE THREADS, leave some action to be investigated by this thread
-			while (spareThreads > 0 && actions.size() > 1) {
-				EDirection dir = actions.get(0).getDirection();
+			int first = 0;
+			while (spareThreads > 0 && actions.size() - first > 1) {
+				EDirection dir = actions.get(first).getDirection();
 				BoardCompact threadBoard = board.clone();
-				actions.get(0).perform(threadBoard);
+				actions.get(first).perform(threadBoard);
 				
 				int nextSpareThreads;
 				// DECIDE ON NUMBER OF THREADS GIVEN TO THE NEXT DFSThread TO USE
-				if      (actions.size() == 2) nextSpareThreads = spareThreads-1;
+				if      (actions.size() - first == 2) nextSpareThreads = spareThreads-1;
 				else if (spareThreads > 2)    nextSpareThreads = 1;
 				else                          nextSpareThreads = 0;
 				
@@ -171,11 +180,11 @@ public class MTDFS2Agent extends ArtificialAgent {
 				
 				// PREPARE NEXT ITERATION
 				spareThreads = spareThreads - 1 - nextSpareThreads;
-				actions.remove(0);
+				++first;
 			}
 			
 			// DFS THE REST OF ACTIONS
-			dfs(actions, level);
+			dfs(actions, first, level);
 			
 			if (solutionFound) {
 				// SOLUTION FOUND HERE...
@@ -215,33 +224,34 @@ public class MTDFS2Agent extends ArtificialAgent {
 				return false; // SOLUTION ALREADY FOUND IN DIFFERENT THREAD
 			}
 			
-			List<CAction> actions = new ArrayList<CAction>(4);
+			ActionBuffer<CAction> actions = actionStack.at(level);
 			
-			for (CPush push : CPush.getActions()) {
+			for (CPush push : CPush.getActionArray()) {
 				if (push.isPossible(board)) {
-					actions.add(push);
+					actions.accept(push);
 				}
 			}
-			for (CMove move : CMove.getActions()) {
+			for (CMove move : CMove.getActionArray()) {
 				if (move.getDirection() == previousMove.opposite()) {
 					// DO NOT CONSIDER THE ACTION THE MOVES BACK
 					continue;
 				}
 				if (move.isPossible(board)) {
-					actions.add(move);
+					actions.accept(move);
 				}
 			}
 						
-			return dfs(actions, level);
+			return dfs(actions, 0, level);
 		}
 		
-		private boolean dfs(List<CAction> actions, int level) {
+		private boolean dfs(ActionBuffer<CAction> actions, int first, int level) {
 			if (level <= 0) return false; // DEPTH-LIMITED
 			
 			MTDFS2Agent.this.searchedNodes.incrementAndGet();
 			
 			// TRY ACTIONS
-			for (CAction action : actions) {
+			for (int i = first; i < actions.size(); ++i) {
+				CAction action = actions.get(i);
 				if (MTDFS2Agent.this.solutionFound) {
 					return false; // SOLUTION ALREADY FOUND IN DIFFERENT THREAD
 				}
@@ -1,14 +1,14 @@
 package agents.actions;
 
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Set;
 
 import game.actions.EDirection;
 import game.actions.compact.CPush;
 import game.actions.compact.CWalk;
 import game.actions.compact.CWalkPush;
+import game.actions.compact.CWalkTree;
 import game.board.compact.BoardCompact;
 import game.board.compact.CTile;
 
@@ -21,55 +21,32 @@ import game.board.compact.CTile;
  */
 public class ActionsBFS {
 	
-	private static class Node {
-		
-		public final int x;
-		public final int y;
-		
-		public final int level;
-		
-		public final int hashCode;
-		
-		public final EDirection move;
-		
-		public Node parent;
-		
-		public Node(int x, int y, int level, EDirection move) {
-			this.x = x;
-			this.y = y;		
-			this.level = level;
-			this.move = move;
-			hashCode = 290317 * x + 97 * y;
-		}
-		
-		public Node(int x, int y, Node parent, EDirection move) {
-			this.x = x;
-			this.y = y;		
-			this.parent = parent;
-			this.level = parent.level + 1;
-			this.move = move;
-			hashCode = 290317 * x + 97 * y;
-		}
-		
-		@Override
-		public int hashCode() {
-			return hashCode;
-		}
-		
-		public boolean equals(Object obj) {
-			return ((Node)obj).x == x && ((Node)obj).y == y;
-		}
-		
-		@Override
-		public String toString() {
-			return "Node[" + x + "," + y + "|level = " + level + "]";
-		}
-		
-	}
+	/**
+	 * Tile x * height + y is visited iff its stamp equals {@link #stamp}; bumping the stamp forgets all visits at once.
+	 */
+	private int[] stamps;
 	
-	private CircularArrayQueue<Node> queue;
+	private int stamp = 0;
 	
-	private Set<Node> touched;
+	/**
+	 * Ring over the tiles; every tile is enqueued at most once, so it never wraps within a single search.
+	 */
+	private int[] queue;
+	
+	/**
+	 * {@link EDirection#index} of the step into a visited tile.
+	 */
+	private byte[] parentDirs;
+	
+	/**
+	 * Number of steps to a visited tile.
+	 */
+	private int[] levels;
+	
+	/**
+	 * Visited tiles next to a box that can be pushed, in BFS order.
+	 */
+	private int[] targets;
 	
 	public boolean depthLimitHit = false;
 	
@@ -77,89 +54,80 @@ public class ActionsBFS {
 	
 	/**
 	 * Performs BFS to find all possible "walk-to-the-box-and-push" actions ({@link CWalkPush} actions}.
+	 * 
+	 * Walk paths are not built here; the {@link CWalk}s of one call share a {@link CWalkTree} and expand their paths
+	 * only when asked for {@link CWalk#getDirections()}.
+	 * 
 	 * @param board
 	 * @return
 	 */
 	public List<CWalkPush> findActions(BoardCompact board) {
 		depthLimitHit = false;
 		
-		List<CWalkPush> result = new ArrayList<CWalkPush>();
-		
-		if (queue == null) {
-			queue = new CircularArrayQueue<ActionsBFS.Node>(board.width() * board.height());
-		} else {
-			queue.ensureCapacity(board.width() * board.height());
+		int height = board.height();
+		int tiles = board.width() * height;
+		if (stamps == null || stamps.length < tiles) {
+			stamps = new int[tiles];
+			queue = new int[tiles];
+			parentDirs = new byte[tiles];
+			levels = new int[tiles];
+			targets = new int[tiles];
+			stamp = 0;
 		}
-		
-		if (touched == null) {
-			touched = new HashSet<Node>();
-		} else {
-			touched.clear();
+		if (++stamp == 0) {
+			Arrays.fill(stamps, 0);
+			stamp = 1;
 		}
-				
-		Node first = new Node(board.playerX, board.playerY, 0, null);
 		
-		// Variant A) include the first node into the result => generate "pushes" from the current player location as well
-		queue.enqueue(first);
-		touched.add(first);
+		int head = 0, tail = 0, targetCount = 0;
 		
-		// Variant B) do not include the first node into the result
-		//touched.add(first);
-		//expand(board, first);
+		// Variant A) include the first tile into the result => generate "pushes" from the current player location as well
+		int first = board.playerX * height + board.playerY;
+		stamps[first] = stamp;
+		levels[first] = 0;
+		queue[tail++] = first;
 		
-		while (!queue.isEmpty()) {
-			Node node = queue.dequeue();
+		while (head != tail) {
+			int tile = queue[head++];
+			int x = tile / height, y = tile % height;
 			
-			if (isTarget(board, node)) {
-				addActions(board, node, result);				
+			if (isTarget(board, x, y)) {
+				targets[targetCount++] = tile;
 			}
-									
-			expand(board, node);
-		}
-
-		return result;
-	}
-	
-	private void expand(BoardCompact board, Node node) {
-		for (EDirection dir : EDirection.arrows()) {
-			if (CTile.isWalkable(board.tile(node.x+dir.dX, node.y+dir.dY))) {
-//				if (CTile.isWall(board.tile(node.x+dir.dX, node.y+dir.dY))) {
-//					System.out.println("???");
-//					CTile.isWalkable(board.tile(node.x+dir.dX, node.y+dir.dY));
-//				}
-//				if (CTile.isSomeBox(board.tile(node.x+dir.dX, node.y+dir.dY))) {
-//					System.out.println("???");
-//					CTile.isWalkable(board.tile(node.x+dir.dX, node.y+dir.dY));
-//				}
-				Node next = new Node(node.x+dir.dX, node.y+dir.dY, node, dir);
-				if (touched.contains(next)) {
+			
+			for (EDirection dir : EDirection.arrows()) {
+				int nx = x + dir.dX, ny = y + dir.dY;
+				if (!CTile.isWalkable(board.tile(nx, ny))) continue;
+				int next = nx * height + ny;
+				if (stamps[next] == stamp) {
 					// already probed
 					continue;
 				}
 				
-				// ADD NODE TO QUEUE
-				touched.add(next);
-				queue.enqueue(next);
+				// ADD TILE TO QUEUE
+				stamps[next] = stamp;
+				parentDirs[next] = (byte)dir.index;
+				levels[next] = levels[tile] + 1;
+				queue[tail++] = next;
 			}
 		}
-	}
-	
-	private void addActions(BoardCompact board, Node node, List<CWalkPush> result) {
-		// CREATE WALK ACTION
-		
-		int targetX = node.x;
-		int targetY = node.y;
 		
-		EDirection[] moves = new EDirection[node.level];
-		int index = node.level-1;
+		List<CWalkPush> result = new ArrayList<CWalkPush>();
+		if (targetCount == 0) return result;
 		
-		while (node != null && node.move != null) {
-			moves[index] = node.move;
-			node = node.parent;
-			--index;
+		// the buffers are reused by the next call, the walks keep a copy of the steps
+		CWalkTree tree = new CWalkTree(height, Arrays.copyOf(parentDirs, tiles), board.playerX, board.playerY);
+		for (int i = 0; i < targetCount; ++i) {
+			addActions(board, targets[i] / height, targets[i] % height, levels[targets[i]], tree, result);
 		}
 		
-		CWalk walkAction = new CWalk(targetX, targetY, moves);
+		return result;
+	}
+	
+	private void addActions(BoardCompact board, int targetX, int targetY, int level, CWalkTree tree, List<CWalkPush> result) {
+		// CREATE WALK ACTION
+		
+		CWalk walkAction = new CWalk(targetX, targetY, level, tree);
 		
 		// NOW QUERY POSSIBLE PUSH ACTIONS FROM [targetX, targetY] AND CREATE RESULT ACTIONS
 		
@@ -171,12 +139,12 @@ public class ActionsBFS {
 		}
 	}
 
-	private static boolean isTarget(BoardCompact board, Node node) {
+	private static boolean isTarget(BoardCompact board, int x, int y) {
 		// moveable box around
-		return    isMovableBoxAt(board, node.x-1, node.y, EDirection.LEFT) 
-			   || isMovableBoxAt(board, node.x+1, node.y, EDirection.RIGHT) 
-			   || isMovableBoxAt(board, node.x, node.y-1, EDirection.UP) 
-			   || isMovableBoxAt(board, node.x, node.y+1, EDirection.DOWN);
+		return    isMovableBoxAt(board, x-1, y, EDirection.LEFT) 
+			   || isMovableBoxAt(board, x+1, y, EDirection.RIGHT) 
+			   || isMovableBoxAt(board, x, y-1, EDirection.UP) 
+			   || isMovableBoxAt(board, x, y+1, EDirection.DOWN);
 	}
 	
 	private static boolean isMovableBoxAt(BoardCompact board, int x, int y, EDirection moveDir) {
@@ -0,0 +1,103 @@
+package agents.actions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.CPush;
+import game.actions.compact.CWalk;
+import game.actions.compact.CWalkPush;
+import game.board.bits.BoardBits;
+import game.board.compact.BoardCompact;
+
+/**
+ * Finds the same {@link CWalkPush} actions as {@link ActionsBFS}, but on a {@link BoardBits} kept in step with the
+ * searched states: the player reachability and the pushable boxes are computed a row at a time
+ * ({@link BoardBits#reachable(long[])}, {@link BoardBits#pushable(EDirection, long[], long[])}) and the walks are
+ * found only when asked for, from a {@link BoardBits#snapshot()} of the state.
+ *
+ * Only for levels at most {@link BoardBits#MAX_WIDTH} wide (see {@link BoardBits#fits(BoardCompact)}). Keeps reusable
+ * buffers, so use one instance per search thread.
+ */
+public class ActionsBits {
+
+	private final BoardBits bits;
+
+	private final long[] reach;
+
+	/**
+	 * {@link EDirection#index} -> boxes pushable that way.
+	 */
+	private final long[][] pushable;
+
+	/**
+	 * Tiles the player pushes some box from.
+	 */
+	private final long[] targets;
+
+	/**
+	 * @param level any state of the level the searched states belong to
+	 */
+	public ActionsBits(BoardCompact level) {
+		bits = level.makeBoardBits();
+		int height = bits.height();
+		reach = new long[height];
+		pushable = new long[EDirection.arrows().length][height];
+		targets = new long[height];
+	}
+
+	/**
+	 * All the "walk-to-the-box-and-push" actions of 'board', a state of the level this instance was made for; the pushes
+	 * from one tile share their {@link CWalk}.
+	 *
+	 * @param board
+	 * @return
+	 */
+	public List<CWalkPush> findActions(BoardCompact board) {
+		bits.setState(board);
+		bits.reachable(reach);
+
+		int height = bits.height();
+		boolean any = false;
+		for (EDirection dir : EDirection.arrows()) {
+			long[] boxes = bits.pushable(dir, reach, pushable[dir.index]);
+			for (int y = 0; y < height; ++y) {
+				any |= boxes[y] != 0;
+			}
+		}
+
+		List<CWalkPush> result = new ArrayList<CWalkPush>();
+		if (!any) return result;
+
+		// the player stands one tile behind the box
+		for (int y = 0; y < height; ++y) {
+			long row = 0;
+			for (EDirection dir : EDirection.arrows()) {
+				int boxY = y + dir.dY;
+				if (boxY < 0 || boxY >= height) continue;
+				long boxes = pushable[dir.index][boxY];
+				row |= dir.dX > 0 ? boxes >>> 1 : dir.dX < 0 ? boxes << 1 : boxes;
+			}
+			targets[y] = row;
+		}
+
+		// the next call changes 'bits', the walks keep a copy of the state
+		BoardBits paths = bits.snapshot();
+		for (int y = 0; y < height; ++y) {
+			for (long row = targets[y]; row != 0; row &= row - 1) {
+				int x = Long.numberOfTrailingZeros(row);
+				CWalk walk = new CWalk(x, y, paths);
+				for (EDirection dir : EDirection.arrows()) {
+					int boxX = x + dir.dX, boxY = y + dir.dY;
+					if (boxY < 0 || boxY >= height || boxX < 0 || boxX >= bits.width()) continue;
+					if ((pushable[dir.index][boxY] >>> boxX & 1) != 0) {
+						result.add(new CWalkPush(walk, CPush.getAction(dir)));
+					}
+				}
+			}
+		}
+
+		return result;
+	}
+
+}
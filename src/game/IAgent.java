@@ -6,6 +6,13 @@ import game.board.compact.BoardCompact;
 public interface IAgent {
     public void init(boolean optimal, boolean verbose);
 
+	/**
+	 * How much time the agent has to solve the next level, called just before {@link #newLevel()}.
+	 * @param timeoutMillis non-positive number == no timeout
+	 */
+	public default void setTimeout(long timeoutMillis) {
+	}
+
 	/**
 	 * Agent got into a new level.
 	 */
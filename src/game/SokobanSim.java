@@ -74,6 +74,7 @@ public class SokobanSim implements ISokobanGame, Runnable {
 			startTime = System.currentTimeMillis();
 			
 			try {
+				agent.setTimeout(config.timeoutMillis);
 				agent.newLevel();
 			} catch (Exception e) {
 				onAgentException(e);
@@ -17,19 +17,39 @@ public class CMove extends CAction {
 	
 	private static Map<EDirection, CMove> actions = new HashMap<EDirection, CMove>();
 	
+	/**
+	 * Indexed by {@link EDirection#ordinal()}, null for {@link EDirection#NONE}.
+	 */
+	private static CMove[] byOrdinal = new CMove[EDirection.values().length];
+	
+	private static CMove[] arrowActions = new CMove[4];
+	
 	static {
 		actions.put(EDirection.DOWN, new CMove(EDirection.DOWN));
 		actions.put(EDirection.UP, new CMove(EDirection.UP));
 		actions.put(EDirection.LEFT, new CMove(EDirection.LEFT));
 		actions.put(EDirection.RIGHT, new CMove(EDirection.RIGHT));
+		for (EDirection dir : EDirection.arrows()) {
+			byOrdinal[dir.ordinal()] = actions.get(dir);
+			arrowActions[dir.index] = actions.get(dir);
+		}
 	}
 	
 	public static Collection<CMove> getActions() {
 		return actions.values();
 	}
 	
+	/**
+	 * All actions in {@link EDirection#arrows()} order; iterating the array does not allocate, unlike {@link #getActions()}.
+	 * Shared, do not modify.
+	 * @return
+	 */
+	public static CMove[] getActionArray() {
+		return arrowActions;
+	}
+	
 	public static CMove getAction(EDirection direction) {
-		return actions.get(direction);
+		return byOrdinal[direction.ordinal()];
 	}
 	
 	private EDirection dir;
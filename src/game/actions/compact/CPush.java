@@ -17,19 +17,39 @@ public class CPush extends CAction {
 	
 	private static Map<EDirection, CPush> actions = new HashMap<EDirection, CPush>();
 	
+	/**
+	 * Indexed by {@link EDirection#ordinal()}, null for {@link EDirection#NONE}.
+	 */
+	private static CPush[] byOrdinal = new CPush[EDirection.values().length];
+	
+	private static CPush[] arrowActions = new CPush[4];
+	
 	static {
 		actions.put(EDirection.DOWN, new CPush(EDirection.DOWN));
 		actions.put(EDirection.UP, new CPush(EDirection.UP));
 		actions.put(EDirection.LEFT, new CPush(EDirection.LEFT));
 		actions.put(EDirection.RIGHT, new CPush(EDirection.RIGHT));
+		for (EDirection dir : EDirection.arrows()) {
+			byOrdinal[dir.ordinal()] = actions.get(dir);
+			arrowActions[dir.index] = actions.get(dir);
+		}
 	}
 	
 	public static Collection<CPush> getActions() {
 		return actions.values();
 	}
 	
+	/**
+	 * All actions in {@link EDirection#arrows()} order; iterating the array does not allocate, unlike {@link #getActions()}.
+	 * Shared, do not modify.
+	 * @return
+	 */
+	public static CPush[] getActionArray() {
+		return arrowActions;
+	}
+	
 	public static CPush getAction(EDirection direction) {
-		return actions.get(direction);
+		return byOrdinal[direction.ordinal()];
 	}
 	
 	private EDirection dir;
@@ -18,6 +18,9 @@ public class CWalk extends CAction {
 	private int fromY = -1;
 	
 	private EDirection[] path;
+	
+	private CWalkPaths paths;
+	private int steps = -1;
 
 	public CWalk(int x, int y) {
 		this.x = x;
@@ -29,28 +32,78 @@ public class CWalk extends CAction {
 		this.y = y;
 		this.path = path;
 	}
+	
+	/**
+	 * Walk of 'steps' steps whose path is read from 'paths' on the first {@link #getDirections()}.
+	 * @param x
+	 * @param y
+	 * @param steps
+	 * @param paths
+	 */
+	public CWalk(int x, int y, int steps, CWalkPaths paths) {
+		this.x = x;
+		this.y = y;
+		this.steps = steps;
+		this.paths = paths;
+	}
+	
+	/**
+	 * Walk whose path, and so its number of steps, is read from 'paths' only when asked for.
+	 * @param x
+	 * @param y
+	 * @param paths
+	 */
+	public CWalk(int x, int y, CWalkPaths paths) {
+		this.x = x;
+		this.y = y;
+		this.paths = paths;
+	}
 
 	@Override
 	public EActionType getType() {
 		return EActionType.WALK;
 	}
 
+	/**
+	 * Target X coordinate of the walk.
+	 * @return
+	 */
+	public int getX() {
+		return x;
+	}
+	
+	/**
+	 * Target Y coordinate of the walk.
+	 * @return
+	 */
+	public int getY() {
+		return y;
+	}
+
 	@Override
 	public EDirection getDirection() {
+		EDirection[] path = getDirections();
 		return path == null ? null : path[0];
 	}
 	
 	@Override
 	public EDirection[] getDirections() {
+		if (path == null && paths != null) {
+			path = paths.path(x, y);
+			paths = null;
+		}
 		return path;
 	}
 	
 	/**
-	 * How many steps do you need in order to perform the walk; defined only if directions are provided during construction using {@link CWalk#CWalk(int, int, EDirection[])}.
+	 * How many steps do you need in order to perform the walk; defined only if directions are provided during construction
+	 * using {@link CWalk#CWalk(int, int, EDirection[])}, {@link CWalk#CWalk(int, int, int, CWalkPaths)} or
+	 * {@link CWalk#CWalk(int, int, CWalkPaths)}.
 	 * @return
 	 */
 	public int getSteps() {
-		return path == null ? -1 : path.length;
+		if (steps < 0 && paths != null) getDirections();
+		return path != null ? path.length : steps;
 	}
 
 	@Override
@@ -0,0 +1,21 @@
+package game.actions.compact;
+
+import game.actions.EDirection;
+
+/**
+ * Walk paths from the player position of one search state, shared by the {@link CWalk}s found there and turned into
+ * {@link EDirection}s only when one of them is asked for ({@link CWalk#getDirections()}).
+ *
+ * Must not be modified after the {@link CWalk}s are handed out.
+ */
+public interface CWalkPaths {
+
+	/**
+	 * The steps leading from the player to [x;y], which must be reachable.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public EDirection[] path(int x, int y);
+
+}
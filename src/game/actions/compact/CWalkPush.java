@@ -23,10 +23,22 @@ public class CWalkPush extends CAction {
 		return EActionType.WALK_AND_PUSH;
 	}
 
+	public CWalk getWalk() {
+		return walk;
+	}
+	
 	public EDirection getPushDirection() {
 		return push.getDirection();
 	}
-	
+
+	/**
+	 * How many box pushes the action performs.
+	 * @return
+	 */
+	public int getPushes() {
+		return 1;
+	}
+
 	@Override
 	public EDirection getDirection() {
 		return walk.getDirection();
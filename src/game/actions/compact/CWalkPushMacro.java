@@ -0,0 +1,76 @@
+package game.actions.compact;
+
+import java.util.List;
+
+import game.actions.EDirection;
+import game.board.compact.BoardCompact;
+
+/**
+ * Several {@link CWalkPush} performed as one action, e.g. pushing a box through a whole tunnel.
+ *
+ * {@link #getWalk()} and {@link #getPushDirection()} describe the first walk+push only; {@link #getDirections()} expands
+ * all of them into single steps.
+ */
+public class CWalkPushMacro extends CWalkPush {
+
+	private CWalkPush[] steps;
+
+	public CWalkPushMacro(List<CWalkPush> steps) {
+		super(steps.get(0).getWalk(), CPush.getAction(steps.get(0).getPushDirection()));
+		this.steps = steps.toArray(new CWalkPush[steps.size()]);
+	}
+
+	@Override
+	public int getPushes() {
+		return steps.length;
+	}
+
+	@Override
+	public EDirection[] getDirections() {
+		int count = 0;
+		for (CWalkPush step : steps) {
+			count += step.getDirections().length;
+		}
+		EDirection[] result = new EDirection[count];
+		int index = 0;
+		for (CWalkPush step : steps) {
+			for (EDirection dir : step.getDirections()) {
+				result[index++] = dir;
+			}
+		}
+		return result;
+	}
+
+	@Override
+	public int getSteps() {
+		int result = 0;
+		for (CWalkPush step : steps) {
+			result += step.getSteps();
+		}
+		return result;
+	}
+
+	@Override
+	public void perform(BoardCompact board) {
+		for (CWalkPush step : steps) {
+			step.perform(board);
+		}
+	}
+
+	@Override
+	public void reverse(BoardCompact board) {
+		for (int i = steps.length - 1; i >= 0; --i) {
+			steps[i].reverse(board);
+		}
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder result = new StringBuilder("CWalkPushMacro[");
+		for (CWalkPush step : steps) {
+			result.append("\n  ").append(step);
+		}
+		return result.append("\n]").toString();
+	}
+
+}
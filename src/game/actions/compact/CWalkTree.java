@@ -0,0 +1,46 @@
+package game.actions.compact;
+
+import game.actions.EDirection;
+
+/**
+ * Walk paths of a single player BFS over a {@link game.board.compact.BoardCompact}: the direction of the last step into
+ * every reached tile, indexed by x * height + y.
+ */
+public class CWalkTree implements CWalkPaths {
+
+	private final int height;
+
+	/**
+	 * x * height + y -> {@link EDirection#index} of the step into the tile.
+	 */
+	private final byte[] steps;
+
+	/**
+	 * Tile the BFS started from.
+	 */
+	private final int start;
+
+	public CWalkTree(int height, byte[] steps, int startX, int startY) {
+		this.height = height;
+		this.steps = steps;
+		this.start = startX * height + startY;
+	}
+
+	@Override
+	public EDirection[] path(int x, int y) {
+		int length = 0;
+		for (int tile = x * height + y; tile != start; ++length) {
+			EDirection dir = EDirection.arrows()[steps[tile]];
+			tile -= dir.dX * height + dir.dY;
+		}
+		EDirection[] path = new EDirection[length];
+		for (int i = length - 1; i >= 0; --i) {
+			EDirection dir = EDirection.arrows()[steps[x * height + y]];
+			path[i] = dir;
+			x -= dir.dX;
+			y -= dir.dY;
+		}
+		return path;
+	}
+
+}
@@ -0,0 +1,23 @@
+package game.actions.flat;
+
+import game.actions.EDirection;
+import game.actions.oop.EActionType;
+import game.board.flat.BoardFlat;
+
+/**
+ * Action over {@link BoardFlat}; same semantics as the corresponding {@link game.actions.compact.CAction}, but thanks to
+ * the wall border of the board there are no edge checks.
+ */
+public abstract class FAction {
+	
+	public abstract EActionType getType();
+	
+	public abstract EDirection getDirection();
+
+	public abstract boolean isPossible(BoardFlat board);
+	
+	public abstract void perform(BoardFlat board);
+	
+	public abstract void reverse(BoardFlat board);
+	
+}
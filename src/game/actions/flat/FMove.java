@@ -0,0 +1,83 @@
+package game.actions.flat;
+
+import game.actions.EDirection;
+import game.actions.oop.EActionType;
+import game.board.compact.CTile;
+import game.board.flat.BoardFlat;
+
+/**
+ * MOVE ONLY, if there is a box, a wall or no free space, then the action is considered "not possible".
+ */
+public class FMove extends FAction {
+	
+	/**
+	 * Indexed by {@link EDirection#ordinal()}, null for {@link EDirection#NONE}.
+	 */
+	private static FMove[] byOrdinal = new FMove[EDirection.values().length];
+	
+	private static FMove[] arrowActions = new FMove[4];
+	
+	static {
+		for (EDirection dir : EDirection.arrows()) {
+			byOrdinal[dir.ordinal()] = arrowActions[dir.index] = new FMove(dir);
+		}
+	}
+	
+	/**
+	 * All moves in {@link EDirection#arrows()} order. Shared, do not modify.
+	 * @return
+	 */
+	public static FMove[] getActionArray() {
+		return arrowActions;
+	}
+	
+	public static FMove getAction(EDirection direction) {
+		return byOrdinal[direction.ordinal()];
+	}
+	
+	private EDirection dir;
+	
+	public FMove(EDirection dir) {
+		this.dir = dir;
+	}
+	
+	@Override
+	public EActionType getType() {
+		return EActionType.MOVE;
+	}
+
+	@Override
+	public EDirection getDirection() {
+		return dir;
+	}
+	
+	@Override
+	public boolean isPossible(BoardFlat board) {
+		// TILE TO THE DIR IS FREE; the border is a wall
+		return CTile.isFree(board.tiles[board.player + board.offset(dir)]);
+	}
+	
+	/**
+	 * PERFORM THE MOVE, no validation, call {@link #isPossible(BoardFlat)} first!
+	 * @param board
+	 */
+	@Override
+	public void perform(BoardFlat board) {
+		board.movePlayer(board.player, board.player + board.offset(dir));
+	}
+	
+	/**
+	 * REVERSE THE MOVE PREVIOUSLY DONE BY {@link #perform(BoardFlat)}, no validation.
+	 * @param board
+	 */
+	@Override
+	public void reverse(BoardFlat board) {
+		board.movePlayer(board.player, board.player - board.offset(dir));
+	}
+	
+	@Override
+	public String toString() {
+		return "FMove[" + dir.toString() + "]";
+	}
+
+}
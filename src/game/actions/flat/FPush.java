@@ -0,0 +1,104 @@
+package game.actions.flat;
+
+import game.actions.EDirection;
+import game.actions.oop.EActionType;
+import game.board.compact.CTile;
+import game.board.flat.BoardFlat;
+
+/**
+ * PUSH ONLY. If the player is not next to the box or there is nowhere to push the box, than the action is considered as not possible.
+ */
+public class FPush extends FAction {
+	
+	/**
+	 * Indexed by {@link EDirection#ordinal()}, null for {@link EDirection#NONE}.
+	 */
+	private static FPush[] byOrdinal = new FPush[EDirection.values().length];
+	
+	private static FPush[] arrowActions = new FPush[4];
+	
+	static {
+		for (EDirection dir : EDirection.arrows()) {
+			byOrdinal[dir.ordinal()] = arrowActions[dir.index] = new FPush(dir);
+		}
+	}
+	
+	/**
+	 * All pushes in {@link EDirection#arrows()} order. Shared, do not modify.
+	 * @return
+	 */
+	public static FPush[] getActionArray() {
+		return arrowActions;
+	}
+	
+	public static FPush getAction(EDirection direction) {
+		return byOrdinal[direction.ordinal()];
+	}
+	
+	private EDirection dir;
+	
+	public FPush(EDirection dir) {
+		this.dir = dir;
+	}
+	
+	@Override
+	public EActionType getType() {
+		return EActionType.PUSH;
+	}
+
+	@Override
+	public EDirection getDirection() {
+		return dir;
+	}
+	
+	@Override
+	public boolean isPossible(BoardFlat board) {
+		return isPushPossible(board, board.player, dir);
+	}
+	
+	/**
+	 * Is it possible to push the box from 'playerCell' in 'pushDirection' ?
+	 * @param board
+	 * @param playerCell
+	 * @param pushDirection
+	 * @return
+	 */
+	public static boolean isPushPossible(BoardFlat board, int playerCell, EDirection pushDirection) {
+		int offset = board.offset(pushDirection);
+		// TILE TO THE DIR IS A BOX (never the border) AND THE TILE BEHIND IT IS FREE (the border is a wall)
+		return CTile.isSomeBox(board.tiles[playerCell + offset]) && CTile.isFree(board.tiles[playerCell + offset + offset]);
+	}
+	
+	/**
+	 * PERFORM THE PUSH, no validation, call {@link #isPossible(BoardFlat)} first!
+	 * @param board
+	 */
+	@Override
+	public void perform(BoardFlat board) {
+		int offset = board.offset(dir);
+		// MOVE THE BOX
+		board.moveBox(board.player + offset, board.player + offset + offset);
+		// MOVE THE PLAYER
+		board.movePlayer(board.player, board.player + offset);
+	}
+	
+	/**
+	 * REVERSE THE ACTION PREVIOUSLY DONE BY {@link #perform(BoardFlat)}, no validation.
+	 * @param board
+	 */
+	@Override
+	public void reverse(BoardFlat board) {
+		int offset = board.offset(dir);
+		int player = board.player;
+		// MOVE THE PLAYER
+		board.movePlayer(player, player - offset);
+		// MOVE THE BOX
+		board.moveBox(player + offset, player);
+	}
+	
+	@Override
+	public String toString() {
+		return "FPush[" + dir.toString() + "]";
+	}
+
+}
@@ -0,0 +1,337 @@
+package game.board.bits;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import game.actions.EDirection;
+import game.actions.compact.CWalkPaths;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+
+/**
+ * Bitboard of a level at most 64 tiles wide: walls, boxes and goals are row masks, bit x of row y standing for tile [x;y].
+ * Ignores colors of boxes and places, like {@link game.board.slim.BoardSlim}.
+ * <br/>
+ * The player reachability ({@link #reachable(long[])}) and the boxes pushable in a direction
+ * ({@link #pushable(EDirection, long[], long[])}) are computed a whole row at a time with shifts and ANDs rather than
+ * tile by tile.
+ * <br/>
+ * As {@link CWalkPaths}, it gives the walks from the player; a {@link #snapshot()} taken when the walks are found keeps
+ * them valid after the board changes.
+ */
+public class BoardBits implements CWalkPaths {
+
+	public static final int MAX_WIDTH = 64;
+
+	public final long[] walls;
+	public final long[] boxes;
+	public final long[] goals;
+
+	public int playerX;
+	public int playerY;
+
+	public int boxCount;
+
+	private final int width;
+	private final long rowMask;
+
+	private Integer hash = null;
+
+	private BoardBits(int width, int height) {
+		if (width > MAX_WIDTH) throw new IllegalArgumentException("Level too wide for BoardBits: " + width + " > " + MAX_WIDTH);
+		this.width = width;
+		this.rowMask = width == MAX_WIDTH ? -1L : (1L << width) - 1;
+		walls = new long[height];
+		boxes = new long[height];
+		goals = new long[height];
+	}
+
+	private BoardBits(BoardBits level, long[] boxes) {
+		this.width = level.width;
+		this.rowMask = level.rowMask;
+		this.walls = level.walls;
+		this.boxes = boxes;
+		this.goals = level.goals;
+	}
+
+	/**
+	 * Bitboard of 'board', whose width must not exceed {@link #MAX_WIDTH} (see {@link #fits(BoardCompact)}).
+	 * @param board
+	 */
+	public BoardBits(BoardCompact board) {
+		this(board.width(), board.height());
+		for (int y = 0; y < height(); ++y) {
+			for (int x = 0; x < width; ++x) {
+				int tile = board.tile(x, y);
+				long bit = 1L << x;
+				if (CTile.isWall(tile)) walls[y] |= bit;
+				if (CTile.isSomeBox(tile)) boxes[y] |= bit;
+				if (CTile.forSomeBox(tile)) goals[y] |= bit;
+			}
+		}
+		playerX = board.playerX;
+		playerY = board.playerY;
+		boxCount = board.boxCount;
+	}
+
+	public static boolean fits(BoardCompact board) {
+		return board.width() <= MAX_WIDTH;
+	}
+
+	@Override
+	public BoardBits clone() {
+		BoardBits result = new BoardBits(width, height());
+		System.arraycopy(walls, 0, result.walls, 0, walls.length);
+		System.arraycopy(boxes, 0, result.boxes, 0, boxes.length);
+		System.arraycopy(goals, 0, result.goals, 0, goals.length);
+		result.playerX = playerX;
+		result.playerY = playerY;
+		result.boxCount = boxCount;
+		result.hash = hash;
+		return result;
+	}
+
+	/**
+	 * Copy of the boxes and the player sharing {@link #walls} and {@link #goals} with this board, which must not be
+	 * changed any more.
+	 * @return
+	 */
+	public BoardBits snapshot() {
+		BoardBits result = new BoardBits(this, boxes.clone());
+		result.playerX = playerX;
+		result.playerY = playerY;
+		result.boxCount = boxCount;
+		result.hash = hash;
+		return result;
+	}
+
+	/**
+	 * Takes over the boxes and the player of 'board', which must be a state of the level this bitboard was made of.
+	 * @param board
+	 */
+	public void setState(BoardCompact board) {
+		Arrays.fill(boxes, 0);
+		int height = height();
+		for (int x = 0; x < width; ++x) {
+			long bit = 1L << x;
+			for (int y = 0; y < height; ++y) {
+				if (CTile.isSomeBox(board.tile(x, y))) boxes[y] |= bit;
+			}
+		}
+		playerX = board.playerX;
+		playerY = board.playerY;
+		boxCount = board.boxCount;
+		hash = null;
+	}
+
+	@Override
+	public int hashCode() {
+		if (hash == null) {
+			hash = Arrays.hashCode(boxes) * 290317 + playerX * 97 + playerY;
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null) return false;
+		if (this == obj) return true;
+		if (!(obj instanceof BoardBits)) return false;
+		BoardBits other = (BoardBits) obj;
+		if (other.hashCode() != hashCode()) return false;
+		return playerX == other.playerX && playerY == other.playerY
+			&& Arrays.equals(boxes, other.boxes) && Arrays.equals(walls, other.walls) && Arrays.equals(goals, other.goals);
+	}
+
+	public int width() {
+		return width;
+	}
+
+	public int height() {
+		return walls.length;
+	}
+
+	public boolean isWall(int x, int y) {
+		return (walls[y] >>> x & 1) != 0;
+	}
+
+	public boolean isBox(int x, int y) {
+		return (boxes[y] >>> x & 1) != 0;
+	}
+
+	public boolean isGoal(int x, int y) {
+		return (goals[y] >>> x & 1) != 0;
+	}
+
+	/**
+	 * Neither a wall nor a box; the player does not block anything.
+	 * @param y
+	 * @return
+	 */
+	private long free(int y) {
+		return ~(walls[y] | boxes[y]) & rowMask;
+	}
+
+	/**
+	 * Tiles the player can walk to, as row masks written into 'reach' (of length {@link #height()}), which is returned.
+	 * @param reach
+	 * @return
+	 */
+	public long[] reachable(long[] reach) {
+		Arrays.fill(reach, 0);
+		reach[playerY] = 1L << playerX;
+		return fill(reach, null);
+	}
+
+	/**
+	 * Free tiles (neither a wall nor a box) outside 'reach', as row masks written into 'dest', which is returned.
+	 * @param reach
+	 * @param dest
+	 * @return
+	 */
+	public long[] unreachable(long[] reach, long[] dest) {
+		for (int y = 0; y < dest.length; ++y) {
+			dest[y] = free(y) & ~reach[y];
+		}
+		return dest;
+	}
+
+	/**
+	 * Grows 'region' over all the tiles of 'area' (free tiles if null) connected to it through 'area'; returns 'region'.
+	 * @param region
+	 * @param area
+	 * @return
+	 */
+	public long[] fill(long[] region, long[] area) {
+		int height = height();
+		// alternate downward and upward sweeps until nothing grows
+		boolean changed = true;
+		while (changed) {
+			changed = false;
+			for (int y = 0; y < height; ++y) {
+				changed |= grow(region, y, area == null ? free(y) : area[y]);
+			}
+			for (int y = height - 1; y >= 0; --y) {
+				changed |= grow(region, y, area == null ? free(y) : area[y]);
+			}
+		}
+		return region;
+	}
+
+	private static boolean grow(long[] region, int y, long area) {
+		long row = region[y];
+		if (y > 0) row |= region[y - 1] & area;
+		if (y < region.length - 1) row |= region[y + 1] & area;
+		if (row == 0) return false;
+		// spread along the row
+		long next;
+		while ((next = (row | row << 1 | row >>> 1) & area) != row) {
+			row = next;
+		}
+		if (row == region[y]) return false;
+		region[y] = row;
+		return true;
+	}
+
+	/**
+	 * Boxes the player can push in 'dir' (one tile, into a tile without a wall or a box) after walking within 'reach'
+	 * (see {@link #reachable(long[])}), as row masks written into 'dest', which is returned.
+	 * @param dir
+	 * @param reach
+	 * @param dest
+	 * @return
+	 */
+	public long[] pushable(EDirection dir, long[] reach, long[] dest) {
+		int height = height();
+		for (int y = 0; y < height; ++y) {
+			long from, to;
+			switch (dir) {
+			case RIGHT: from = reach[y] << 1;  to = free(y) >>> 1; break;
+			case LEFT:  from = reach[y] >>> 1; to = free(y) << 1;  break;
+			case DOWN:  from = y > 0 ? reach[y - 1] : 0;          to = y < height - 1 ? free(y + 1) : 0; break;
+			case UP:    from = y < height - 1 ? reach[y + 1] : 0; to = y > 0 ? free(y - 1) : 0;          break;
+			default:    from = to = 0;
+			}
+			dest[y] = boxes[y] & from & to;
+		}
+		return dest;
+	}
+
+	/**
+	 * A shortest walk of the player to [x;y], found by growing the tiles at each distance a row at a time and stepping
+	 * back through them; null if [x;y] cannot be reached.
+	 */
+	@Override
+	public EDirection[] path(int x, int y) {
+		int height = height();
+		List<long[]> layers = new ArrayList<long[]>();
+		long[] seen = new long[height];
+		long[] layer = new long[height];
+		seen[playerY] = layer[playerY] = 1L << playerX;
+		layers.add(layer);
+		while ((layer[y] >>> x & 1) == 0) {
+			long[] next = new long[height];
+			boolean grown = false;
+			for (int row = 0; row < height; ++row) {
+				long near = layer[row] | layer[row] << 1 | layer[row] >>> 1;
+				if (row > 0) near |= layer[row - 1];
+				if (row < height - 1) near |= layer[row + 1];
+				next[row] = near & free(row) & ~seen[row];
+				seen[row] |= next[row];
+				grown |= next[row] != 0;
+			}
+			if (!grown) return null;
+			layers.add(next);
+			layer = next;
+		}
+
+		EDirection[] path = new EDirection[layers.size() - 1];
+		for (int i = path.length - 1; i >= 0; --i) {
+			long[] previous = layers.get(i);
+			for (EDirection dir : EDirection.arrows()) {
+				int fromX = x - dir.dX, fromY = y - dir.dY;
+				if (fromX < 0 || fromX >= width || fromY < 0 || fromY >= height) continue;
+				if ((previous[fromY] >>> fromX & 1) == 0) continue;
+				path[i] = dir;
+				x = fromX;
+				y = fromY;
+				break;
+			}
+		}
+		return path;
+	}
+
+	public void movePlayer(int targetX, int targetY) {
+		playerX = targetX;
+		playerY = targetY;
+		hash = null;
+	}
+
+	public void moveBox(int sourceX, int sourceY, int targetX, int targetY) {
+		boxes[sourceY] &= ~(1L << sourceX);
+		boxes[targetY] |= 1L << targetX;
+		hash = null;
+	}
+
+	public int boxInPlaceCount() {
+		int count = 0;
+		for (int y = 0; y < boxes.length; ++y) {
+			count += Long.bitCount(boxes[y] & goals[y]);
+		}
+		return count;
+	}
+
+	/**
+	 * Whether the board is in WIN-STATE == all boxes are in correct places.
+	 *
+	 * @return
+	 */
+	public boolean isVictory() {
+		for (int y = 0; y < boxes.length; ++y) {
+			if ((boxes[y] & ~goals[y]) != 0) return false;
+		}
+		return true;
+	}
+
+}
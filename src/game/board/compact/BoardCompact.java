@@ -1,6 +1,8 @@
 package game.board.compact;
 
+import game.board.bits.BoardBits;
 import game.board.compressed.BoardCompressed;
+import game.board.flat.BoardFlat;
 import game.board.compressed.MTile;
 import game.board.compressed.MTile.SubSlimTile;
 import game.board.minimal.StateMinimal;
@@ -14,14 +16,19 @@ import game.board.slim.STile;
 /**
  * More memory-compact representation of OOP-bulky {@link Board}.
  * 
- * BEWARE: once {@link #hashCode()} is called and you use {@link #moveBox(int, int, int, int)} or {@link #movePlayer(int, int, int, int)} it will
- *         force {@link #hashCode()} recomputation.
+ * {@link #hashCode()} is derived from the 64-bit Zobrist key ({@link #zobristKey()}) that is computed lazily on the first query
+ * and then kept up-to-date incrementally by {@link #moveBox(int, int, int, int)}, {@link #movePlayer(int, int, int, int)},
+ * {@link #setState(StateMinimal)} and {@link #unsetState(StateMinimal)}.
+ * 
+ * BEWARE: if you write into {@link #tiles} directly after the key has been computed, call {@link #invalidateHash()}.
  * 
  * @author Jimmy
  */
 public class BoardCompact implements Cloneable {
 
-	private Integer hash = null;
+	private long zobrist;
+	
+	private boolean zobristValid = false;
 	
 	/**
 	 * Compact representation of tiles.
@@ -34,9 +41,6 @@ public class BoardCompact implements Cloneable {
 	public int boxCount;
 	public int boxInPlaceCount;
 	
-	private BoardCompact() {
-	}
-	
 	public BoardCompact(int width, int height) {
 		tiles = new int[width][height];
 		for (int x = 0; x < width; ++x) {
@@ -46,42 +50,85 @@ public class BoardCompact implements Cloneable {
 		}
 	}
 	
-	@Override
-	public BoardCompact clone() {
-		BoardCompact result = new BoardCompact();
-		result.tiles = new int[width()][height()];
-		for (int x = 0; x < width(); ++x) {
-			for (int y = 0; y < height(); ++y) {
-				result.tiles[x][y] = tiles[x][y];
+	/**
+	 * Deep copy of 'other', for subclasses that carry extra data with the board.
+	 * @param other
+	 */
+	protected BoardCompact(BoardCompact other) {
+		tiles = new int[other.width()][other.height()];
+		for (int x = 0; x < other.width(); ++x) {
+			for (int y = 0; y < other.height(); ++y) {
+				tiles[x][y] = other.tiles[x][y];
 			}			
 		}
-		result.playerX = playerX;
-		result.playerY = playerY;
-		result.boxCount = boxCount;
-		result.boxInPlaceCount = boxInPlaceCount;
-		return result;
+		playerX = other.playerX;
+		playerY = other.playerY;
+		boxCount = other.boxCount;
+		boxInPlaceCount = other.boxInPlaceCount;
+		zobrist = other.zobrist;
+		zobristValid = other.zobristValid;
 	}
 	
 	@Override
-	public int hashCode() {
-		if (hash == null) {
-			hash = 0;
+	public BoardCompact clone() {
+		return new BoardCompact(this);
+	}
+	
+	/**
+	 * Overwrites this board with the state of 'other' of the same size without allocating; for scratch boards that
+	 * are reused over many states.
+	 * @param other
+	 */
+	public void copyFrom(BoardCompact other) {
+		for (int x = 0; x < other.width(); ++x) {
+			System.arraycopy(other.tiles[x], 0, tiles[x], 0, other.height());
+		}
+		playerX = other.playerX;
+		playerY = other.playerY;
+		boxCount = other.boxCount;
+		boxInPlaceCount = other.boxInPlaceCount;
+		zobrist = other.zobrist;
+		zobristValid = other.zobristValid;
+	}
+	
+	/**
+	 * 64-bit Zobrist key of the dynamic part of the board (player + boxes), see {@link Zobrist}.
+	 * @return
+	 */
+	public long zobristKey() {
+		if (!zobristValid) {
+			zobrist = 0;
 			for (int x = 0; x < width(); ++x) {
 				for (int y = 0; y < height(); ++y) {
-					hash += (290317 * x + 97 * y) * tiles[x][y];
+					zobrist ^= Zobrist.entity(tiles[x][y], x, y);
 				}		
 			}
+			zobristValid = true;
 		}
-		return hash;
+		return zobrist;
+	}
+	
+	/**
+	 * Forces full recomputation of {@link #zobristKey()}; needed only if you have modified {@link #tiles} directly.
+	 */
+	public void invalidateHash() {
+		zobristValid = false;
+	}
+	
+	@Override
+	public int hashCode() {
+		long key = zobristKey();
+		return (int)(key ^ (key >>> 32));
 	}
 	
 	@Override
 	public boolean equals(Object obj) {
 		if (obj == null) return false;
 		if (this == obj) return true;
-		if (obj.hashCode() != hashCode()) return false;
-		if (!(obj instanceof BoardCompact)) return false;		
-		return equalsState((BoardCompact) obj);
+		if (!(obj instanceof BoardCompact)) return false;
+		BoardCompact other = (BoardCompact) obj;
+		if (other.zobristKey() != zobristKey()) return false;
+		return equalsState(other);
 	}
 	
 	public boolean equalsState(BoardCompact other) {
@@ -108,7 +155,7 @@ public class BoardCompact implements Cloneable {
 	}
 	
 	/**
-	 * Fair warning: by moving the player you're invalidating {@link #hashCode()}...
+	 * Moves the player; updates {@link #zobristKey()} incrementally.
 	 * @param sourceTileX
 	 * @param sourceTileY
 	 * @param targetTileX
@@ -126,11 +173,13 @@ public class BoardCompact implements Cloneable {
 		playerX = targetTileX;
 		playerY = targetTileY;
 		
-		hash = null;
+		if (zobristValid) {
+			zobrist ^= Zobrist.entity(entity, sourceTileX, sourceTileY) ^ Zobrist.entity(entity, targetTileX, targetTileY);
+		}
 	}
 	
 	/**
-	 * Fair warning: by moving the box you're invalidating {@link #hashCode()}...
+	 * Moves the box; updates {@link #zobristKey()} incrementally.
 	 * @param sourceTileX
 	 * @param sourceTileY
 	 * @param targetTileX
@@ -152,7 +201,9 @@ public class BoardCompact implements Cloneable {
 		tiles[sourceTileX][sourceTileY] &= EEntity.NULLIFY_ENTITY_FLAG;
 		tiles[sourceTileX][sourceTileY] |= EEntity.NONE.getFlag();
 		
-		hash = null;
+		if (zobristValid) {
+			zobrist ^= Zobrist.box(boxNum, sourceTileX, sourceTileY) ^ Zobrist.box(boxNum, targetTileX, targetTileY);
+		}
 	}
 	
 	/**
@@ -174,12 +225,14 @@ public class BoardCompact implements Cloneable {
 		boxInPlaceCount = 0;
 
 		tiles[playerX][playerY] = (tiles[playerX][playerY] & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.PLAYER.getFlag();
+		if (zobristValid) zobrist ^= Zobrist.player(playerX, playerY);
 		
 		for (int i = 1; i < state.positions.length; ++i) {
 			int x = state.getX(state.positions[i]);
 			int y = state.getY(state.positions[i]);
 			tiles[x][y] = (tiles[x][y] & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.BOX_1.getFlag();
 			if (CTile.forSomeBox(tiles[x][y])) ++boxInPlaceCount;
+			if (zobristValid) zobrist ^= Zobrist.box(1, x, y);
 		}
 	}
 	
@@ -190,6 +243,7 @@ public class BoardCompact implements Cloneable {
 	public void unsetState(StateMinimal state) {
 
 		tiles[playerX][playerY] = (tiles[playerX][playerY] & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.NONE.getFlag();
+		if (zobristValid) zobrist ^= Zobrist.player(playerX, playerY);
 
 		playerX = -1;
 		playerY = -1;
@@ -198,6 +252,7 @@ public class BoardCompact implements Cloneable {
 		for (int i = 1; i < state.positions.length; ++i) {
 			int x = state.getX(state.positions[i]);
 			int y = state.getY(state.positions[i]);
+			if (zobristValid) zobrist ^= Zobrist.entity(tiles[x][y], x, y);
 			tiles[x][y] = (tiles[x][y] & EEntity.NULLIFY_ENTITY_FLAG) | EEntity.NONE.getFlag();
 		}
 	}
@@ -241,6 +296,18 @@ public class BoardCompact implements Cloneable {
 		return sb.toString();
 	}
 	
+	public BoardFlat makeBoardFlat() {
+		return new BoardFlat(this);
+	}
+	
+	/**
+	 * Bitboard of this board, only for levels at most {@link BoardBits#MAX_WIDTH} wide.
+	 * @return
+	 */
+	public BoardBits makeBoardBits() {
+		return new BoardBits(this);
+	}
+	
 	public BoardCompressed makeBoardCompressed() {
 		BoardCompressed result = new BoardCompressed(width(), height());
 		result.boxCount = boxCount;
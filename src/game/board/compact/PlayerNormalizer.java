@@ -0,0 +1,109 @@
+package game.board.compact;
+
+import java.util.Arrays;
+
+import game.actions.EDirection;
+
+/**
+ * Canonical player position for push-based duplicate detection.
+ *
+ * Two boards with the same boxes and the player anywhere within the same reachable region are equivalent
+ * as far as pushes are concerned; {@link #normalize(BoardCompact)} maps all of them to the same, top-left-most
+ * reachable tile (the lowest y, then the lowest x).
+ *
+ * The instance keeps reusable BFS buffers, so it is NOT thread-safe; use one instance per thread.
+ */
+public class PlayerNormalizer {
+
+	private int[] queue = new int[0];
+	private int[] visited = new int[0];
+	private int stamp = 0;
+
+	// Cache of the last query; fingerprint + encode of the same state are typically asked for back-to-back
+	private BoardCompact lastBoard;
+	private long lastKey;
+	private int lastResult;
+
+	/**
+	 * Top-left-most tile the player of 'board' can walk to, packed as x << 16 | y (see {@link #getX(int)}, {@link #getY(int)}).
+	 * @param board
+	 * @return
+	 */
+	public int normalize(BoardCompact board) {
+		if (board == lastBoard && board.zobristKey() == lastKey) return lastResult;
+
+		int width = board.width();
+		int height = board.height();
+		ensureCapacity(width * height);
+		if (++stamp == 0) {
+			Arrays.fill(visited, 0);
+			stamp = 1;
+		}
+
+		int start = board.playerX * height + board.playerY;
+		int best = start;
+		int head = 0, tail = 0;
+		queue[tail++] = start;
+		visited[start] = stamp;
+
+		while (head < tail) {
+			int cell = queue[head++];
+			int x = cell / height;
+			int y = cell % height;
+			if (y < best % height || (y == best % height && x < best / height)) {
+				best = cell;
+			}
+			for (EDirection dir : EDirection.arrows()) {
+				int nx = x + dir.dX;
+				int ny = y + dir.dY;
+				if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+				int next = nx * height + ny;
+				if (visited[next] != stamp && CTile.isWalkable(board.tiles[nx][ny])) {
+					visited[next] = stamp;
+					queue[tail++] = next;
+				}
+			}
+		}
+
+		lastBoard = board;
+		lastKey = board.zobristKey();
+		lastResult = (best / height) << 16 | (best % height);
+		return lastResult;
+	}
+
+	/**
+	 * {@link BoardCompact#zobristKey()} as if the player stood at the {@link #normalize(BoardCompact)} tile.
+	 * @param board
+	 * @return
+	 */
+	public long normalizedKey(BoardCompact board) {
+		int normalized = normalize(board);
+		return board.zobristKey() ^ Zobrist.player(board.playerX, board.playerY) ^ Zobrist.player(getX(normalized), getY(normalized));
+	}
+
+	/**
+	 * Returns X coordinate from packed value.
+	 * @param packed
+	 * @return
+	 */
+	public static int getX(int packed) {
+		return packed >> 16;
+	}
+
+	/**
+	 * Returns Y coordinate from packed value.
+	 * @param packed
+	 * @return
+	 */
+	public static int getY(int packed) {
+		return packed & 0xFFFF;
+	}
+
+	private void ensureCapacity(int cells) {
+		if (queue.length >= cells) return;
+		queue = new int[cells];
+		visited = new int[cells];
+		stamp = 0;
+	}
+
+}
@@ -0,0 +1,60 @@
+package game.board.compact;
+
+/**
+ * Zobrist keys for {@link BoardCompact} entities.
+ *
+ * Every (entity, tile) pair owns a pseudo-random 64-bit key; the key of a board is the XOR of keys of all its entities.
+ * Keys are derived from the coordinates by a stateless mixing function, therefore they do not depend on the board size
+ * and are safe to use from multiple threads.
+ */
+public class Zobrist {
+
+	private static final long SEED = 0x5DEECE66DL;
+
+	/**
+	 * Key of the player standing at [x, y].
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static long player(int x, int y) {
+		return mix(((long)x << 35) | ((long)y << 3));
+	}
+
+	/**
+	 * Key of the box of number 'boxNum' (see {@link CTile#getBoxNum(int)}) standing at [x, y].
+	 * @param boxNum
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static long box(int boxNum, int x, int y) {
+		return mix(((long)x << 35) | ((long)y << 3) | boxNum);
+	}
+
+	/**
+	 * Key of the entity encoded within 'tileFlag' standing at [x, y]; 0 if there is no entity.
+	 * @param tileFlag
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public static long entity(int tileFlag, int x, int y) {
+		if (CTile.isPlayer(tileFlag)) return player(x, y);
+		if (CTile.isSomeBox(tileFlag)) return box(CTile.getBoxNum(tileFlag), x, y);
+		return 0;
+	}
+
+	/**
+	 * SplitMix64 finalizer.
+	 * @param value
+	 * @return
+	 */
+	private static long mix(long value) {
+		long z = value * 0x9E3779B97F4A7C15L + SEED;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+}
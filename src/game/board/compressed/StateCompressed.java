@@ -2,6 +2,7 @@ package game.board.compressed;
 
 import game.board.compact.BoardCompact;
 import game.board.compact.CTile;
+import game.board.compact.PlayerNormalizer;
 import game.board.compressed.MTile.SubSlimTile;
 import game.board.slim.BoardSlim;
 import game.board.slim.STile;
@@ -40,13 +41,32 @@ public class StateCompressed {
 	 * @param boxes
 	 */
 	public StateCompressed(BoardCompact board, int boxes) {
+		this(board, boxes, board.playerX, board.playerY);
+	}
+	
+	/**
+	 * Creates the state out of the 'board' assuming there are certain number of 'boxes'; the player is moved to its canonical
+	 * position given by 'normalizer', so states with the same boxes and the player within the same reachable region are equal.
+	 * @param board
+	 * @param boxes
+	 * @param normalizer
+	 */
+	public StateCompressed(BoardCompact board, int boxes, PlayerNormalizer normalizer) {
+		this(board, boxes, normalizer.normalize(board));
+	}
+	
+	private StateCompressed(BoardCompact board, int boxes, int packedPlayer) {
+		this(board, boxes, PlayerNormalizer.getX(packedPlayer), PlayerNormalizer.getY(packedPlayer));
+	}
+	
+	private StateCompressed(BoardCompact board, int boxes, int playerX, int playerY) {
 		positions = new int[(boxes+1) / (POSITIONS_IN_INT) + ((((boxes+1) / (POSITIONS_IN_INT)) % POSITIONS_IN_INT) == 0 ? 0 : 1)];
 		
 		for (int i = 0; i < positions.length; ++i) {
 			positions[i] = 0;
 		}
 		
-		positions[0] = addPosition(0, board.playerX, board.playerY);
+		positions[0] = addPosition(0, playerX, playerY);
 		
 		int positionIndex = 0;
 		int positionNum = 1;
@@ -0,0 +1,222 @@
+package game.board.flat;
+
+import java.util.Arrays;
+
+import game.actions.EDirection;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.oop.EEntity;
+import game.board.oop.EPlace;
+import game.board.oop.ESpace;
+
+/**
+ * {@link BoardCompact} laid out in a single array and surrounded by a one-tile border of walls: tile [x;y] is
+ * tiles[{@link #cell(int, int)}] = tiles[(y + 1) * stride + x + 1].
+ *
+ * A neighbouring tile is just {@link #offset(EDirection)} (+-1, +-stride) away, and as the border stops every move and
+ * push, move generation never has to check the edges of the board (see {@link game.actions.flat.FMove},
+ * {@link game.actions.flat.FPush}).
+ *
+ * Tiles carry the same flags as {@link BoardCompact#tiles}, query them with {@link CTile}.
+ */
+public class BoardFlat {
+
+	/**
+	 * Flag of the border tiles.
+	 */
+	public static final int BORDER_FLAG = ESpace.WALL.getFlag() | EEntity.NONE.getFlag() | EPlace.NONE.getFlag();
+
+	private int hash;
+
+	private boolean hashValid = false;
+
+	public int[] tiles;
+
+	/**
+	 * Cell of the player.
+	 */
+	public int player;
+
+	public int boxCount;
+	public int boxInPlaceCount;
+
+	private final int width;
+	private final int height;
+	private final int stride;
+
+	/**
+	 * Cell offsets indexed by {@link EDirection#index}.
+	 */
+	private final int[] offsets;
+
+	private BoardFlat(int width, int height) {
+		this.width = width;
+		this.height = height;
+		this.stride = width + 2;
+		this.offsets = new int[]{ -stride, 1, stride, -1 };
+	}
+
+	/**
+	 * Flat copy of 'board'; use {@link game.board.oop.Board#makeBoardCompact()} first to convert an OOP board.
+	 * @param board
+	 */
+	public BoardFlat(BoardCompact board) {
+		this(board.width(), board.height());
+		tiles = new int[stride * (height + 2)];
+		Arrays.fill(tiles, BORDER_FLAG);
+		for (int x = 0; x < width; ++x) {
+			for (int y = 0; y < height; ++y) {
+				tiles[cell(x, y)] = board.tile(x, y);
+			}
+		}
+		player = cell(board.playerX, board.playerY);
+		boxCount = board.boxCount;
+		boxInPlaceCount = board.boxInPlaceCount;
+	}
+
+	@Override
+	public BoardFlat clone() {
+		BoardFlat result = new BoardFlat(width, height);
+		result.tiles = tiles.clone();
+		result.player = player;
+		result.boxCount = boxCount;
+		result.boxInPlaceCount = boxInPlaceCount;
+		result.hash = hash;
+		result.hashValid = hashValid;
+		return result;
+	}
+
+	/**
+	 * Back to {@link BoardCompact}, without the border.
+	 * @return
+	 */
+	public BoardCompact makeBoardCompact() {
+		BoardCompact result = new BoardCompact(width, height);
+		for (int x = 0; x < width; ++x) {
+			for (int y = 0; y < height; ++y) {
+				result.tiles[x][y] = tiles[cell(x, y)];
+			}
+		}
+		result.playerX = x(player);
+		result.playerY = y(player);
+		result.boxCount = boxCount;
+		result.boxInPlaceCount = boxInPlaceCount;
+		return result;
+	}
+
+	@Override
+	public int hashCode() {
+		if (!hashValid) {
+			hash = Arrays.hashCode(tiles);
+			hashValid = true;
+		}
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (obj == null) return false;
+		if (this == obj) return true;
+		if (!(obj instanceof BoardFlat)) return false;
+		BoardFlat other = (BoardFlat) obj;
+		if (other.hashCode() != hashCode()) return false;
+		return Arrays.equals(tiles, other.tiles);
+	}
+
+	/**
+	 * Width of the level, without the border.
+	 * @return
+	 */
+	public int width() {
+		return width;
+	}
+
+	/**
+	 * Height of the level, without the border.
+	 * @return
+	 */
+	public int height() {
+		return height;
+	}
+
+	/**
+	 * Cell of tile [x;y] of the level; x == -1 or width, y == -1 or height are the border.
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public int cell(int x, int y) {
+		return (y + 1) * stride + x + 1;
+	}
+
+	public int x(int cell) {
+		return cell % stride - 1;
+	}
+
+	public int y(int cell) {
+		return cell / stride - 1;
+	}
+
+	/**
+	 * Cell offset of the neighbour in 'dir'.
+	 * @param dir
+	 * @return
+	 */
+	public int offset(EDirection dir) {
+		return offsets[dir.index];
+	}
+
+	public int tile(int cell) {
+		return tiles[cell];
+	}
+
+	public int tile(int x, int y) {
+		return tiles[cell(x, y)];
+	}
+
+	public void movePlayer(int sourceCell, int targetCell) {
+		int entity = tiles[sourceCell] & EEntity.SOME_ENTITY_FLAG;
+
+		tiles[targetCell] &= EEntity.NULLIFY_ENTITY_FLAG;
+		tiles[targetCell] |= entity;
+
+		tiles[sourceCell] &= EEntity.NULLIFY_ENTITY_FLAG;
+		tiles[sourceCell] |= EEntity.NONE.getFlag();
+
+		player = targetCell;
+		hashValid = false;
+	}
+
+	public void moveBox(int sourceCell, int targetCell) {
+		int entity = tiles[sourceCell] & EEntity.SOME_ENTITY_FLAG;
+		int boxNum = CTile.getBoxNum(tiles[sourceCell]);
+
+		if (CTile.forBox(boxNum, tiles[targetCell]) || CTile.forAnyBox(tiles[targetCell])) {
+			++boxInPlaceCount;
+		}
+		tiles[targetCell] &= EEntity.NULLIFY_ENTITY_FLAG;
+		tiles[targetCell] |= entity;
+
+		if (CTile.forBox(boxNum, tiles[sourceCell]) || CTile.forAnyBox(tiles[sourceCell])) {
+			--boxInPlaceCount;
+		}
+		tiles[sourceCell] &= EEntity.NULLIFY_ENTITY_FLAG;
+		tiles[sourceCell] |= EEntity.NONE.getFlag();
+
+		hashValid = false;
+	}
+
+	/**
+	 * Whether the board is in WIN-STATE == all boxes are in correct places.
+	 *
+	 * @return
+	 */
+	public boolean isVictory() {
+		return boxCount == boxInPlaceCount;
+	}
+
+	public void debugPrint() {
+		makeBoardCompact().debugPrint();
+	}
+
+}
@@ -0,0 +1,191 @@
+package game.board.minimal;
+
+import java.util.Arrays;
+
+import game.actions.EDirection;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+
+/**
+ * Dense numbering of the floor of a level: the non-wall tiles the player can reach from its start when boxes are ignored
+ * get indices 0..{@link #size()}-1 in scan order, walls and the outside of the level get none.
+ *
+ * Boxes and the player can only ever stand on the floor, so a state fits into a player index and a bitset over the floor
+ * (see {@link FloorState}, {@link #encode(BoardCompact, int, int, int[], int)}) instead of a tile per cell.
+ *
+ * Static per level and immutable, so it can be shared between threads.
+ *
+ * Cannot be used with multicolored-boxes, see {@link #forBoard(BoardCompact)}.
+ */
+public class FloorIndex {
+
+	private final int width;
+	private final int height;
+
+	/** x * height + y -> floor index, or -1 */
+	private final int[] indices;
+	/** floor index -> coordinates */
+	private final int[] cellX, cellY;
+	/** floor index * 4 + {@link EDirection#index} -> floor index of the neighbour, or -1 */
+	private final int[] neighbours;
+
+	/**
+	 * Floor of 'board'.
+	 * @param board
+	 */
+	public FloorIndex(BoardCompact board) {
+		width = board.width();
+		height = board.height();
+
+		boolean[] reached = new boolean[width * height];
+		int[] queue = new int[width * height];
+		int head = 0, tail = 0;
+		queue[tail++] = board.playerX * height + board.playerY;
+		reached[queue[0]] = true;
+		while (head < tail) {
+			int cell = queue[head++];
+			int x = cell / height, y = cell % height;
+			for (EDirection dir : EDirection.arrows()) {
+				int nx = x + dir.dX, ny = y + dir.dY;
+				if (nx < 0 || nx >= width || ny < 0 || ny >= height) continue;
+				int next = nx * height + ny;
+				if (reached[next] || CTile.isWall(board.tile(nx, ny))) continue;
+				reached[next] = true;
+				queue[tail++] = next;
+			}
+		}
+
+		indices = new int[width * height];
+		Arrays.fill(indices, -1);
+		cellX = new int[tail];
+		cellY = new int[tail];
+		int size = 0;
+		for (int cell = 0; cell < width * height; ++cell) {
+			if (reached[cell]) {
+				indices[cell] = size;
+				cellX[size] = cell / height;
+				cellY[size++] = cell % height;
+			}
+		}
+
+		neighbours = new int[size * 4];
+		for (int i = 0; i < size; ++i) {
+			for (EDirection dir : EDirection.arrows()) {
+				neighbours[i * 4 + dir.index] = index(x(i) + dir.dX, y(i) + dir.dY);
+			}
+		}
+	}
+
+	/**
+	 * Floor of 'board', or null if its states cannot be expressed over the floor: some box is not a BOX_1 or some box
+	 * or goal lies outside of the floor.
+	 * @param board
+	 * @return
+	 */
+	public static FloorIndex forBoard(BoardCompact board) {
+		FloorIndex floor = new FloorIndex(board);
+		if (floor.size() > Short.MAX_VALUE) return null;
+		for (int x = 0; x < board.width(); ++x) {
+			for (int y = 0; y < board.height(); ++y) {
+				int tile = board.tile(x, y);
+				if (CTile.isSomeBox(tile) && (!CTile.isBox(1, tile) || floor.index(x, y) < 0)) return null;
+				if (CTile.forSomeBox(tile) && floor.index(x, y) < 0) return null;
+			}
+		}
+		return floor;
+	}
+
+	/**
+	 * Number of floor tiles.
+	 * @return
+	 */
+	public int size() {
+		return cellX.length;
+	}
+
+	/**
+	 * Number of longs of a box bitset.
+	 * @return
+	 */
+	public int words() {
+		return (cellX.length + 63) >>> 6;
+	}
+
+	/**
+	 * Floor index of [x;y], -1 for walls and tiles outside of the floor (or of the board).
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	public int index(int x, int y) {
+		if (x < 0 || x >= width || y < 0 || y >= height) return -1;
+		return indices[x * height + y];
+	}
+
+	public int x(int index) {
+		return cellX[index];
+	}
+
+	public int y(int index) {
+		return cellY[index];
+	}
+
+	/**
+	 * Floor index of the tile next to 'index' in 'dir', -1 if that one is not floor.
+	 * @param index
+	 * @param dir
+	 * @return
+	 */
+	public int neighbour(int index, EDirection dir) {
+		return neighbours[index * 4 + dir.index];
+	}
+
+	/**
+	 * Boxes of 'board' as a bitset over the floor (bit i of word i / 64 for floor index i).
+	 * @param board
+	 * @return
+	 */
+	public long[] boxes(BoardCompact board) {
+		long[] boxes = new long[words()];
+		for (int i = 0; i < cellX.length; ++i) {
+			if (CTile.isSomeBox(board.tiles[cellX[i]][cellY[i]])) boxes[i >>> 6] |= 1L << i;
+		}
+		return boxes;
+	}
+
+	/**
+	 * Number of ints written by {@link #encode(BoardCompact, int, int, int[], int)}.
+	 * @return
+	 */
+	public int encodedLength() {
+		return 1 + ((cellX.length + 31) >>> 5);
+	}
+
+	/**
+	 * Writes the floor index of [playerX;playerY] followed by the box bitset of 'board' in ints to dest[offset..].
+	 * @param board
+	 * @param playerX
+	 * @param playerY
+	 * @param dest
+	 * @param offset
+	 */
+	public void encode(BoardCompact board, int playerX, int playerY, int[] dest, int offset) {
+		dest[offset] = index(playerX, playerY);
+		Arrays.fill(dest, offset + 1, offset + encodedLength(), 0);
+		for (int i = 0; i < cellX.length; ++i) {
+			if (CTile.isSomeBox(board.tiles[cellX[i]][cellY[i]])) dest[offset + 1 + (i >>> 5)] |= 1 << i;
+		}
+	}
+
+	/**
+	 * Whether the encoding at src[offset..] has a box at floor index 'index'.
+	 * @param src
+	 * @param offset
+	 * @param index
+	 * @return
+	 */
+	public boolean hasEncodedBox(int[] src, int offset, int index) {
+		return (src[offset + 1 + (index >>> 5)] & 1 << index) != 0;
+	}
+
+}
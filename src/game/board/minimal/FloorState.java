@@ -0,0 +1,81 @@
+package game.board.minimal;
+
+import java.util.Arrays;
+
+import game.board.compact.BoardCompact;
+import game.board.compact.PlayerNormalizer;
+
+/**
+ * Runtime-part of the Sokoban game state over a {@link FloorIndex}: boxes as a bitset over the floor and the player as
+ * a floor index. Unlike {@link StateMinimal} its size does not grow with the number of boxes; a level with up to 64
+ * floor tiles takes a single long.
+ *
+ * Cannot be used with multicolored-boxes.
+ */
+public class FloorState {
+
+	/** bit i of word i / 64 set iff there is a box at floor index i */
+	public final long[] boxes;
+
+	public final short player;
+
+	private final int hash;
+
+	/**
+	 * Extract the state of 'board' over 'floor'.
+	 * @param board
+	 * @param floor
+	 */
+	public FloorState(BoardCompact board, FloorIndex floor) {
+		this(floor.boxes(board), (short) floor.index(board.playerX, board.playerY));
+	}
+
+	/**
+	 * Extract the state of 'board' over 'floor' with the player moved to its canonical position given by 'normalizer';
+	 * states with the same boxes and the player within the same reachable region are then equal.
+	 * @param board
+	 * @param floor
+	 * @param normalizer
+	 */
+	public FloorState(BoardCompact board, FloorIndex floor, PlayerNormalizer normalizer) {
+		this(floor.boxes(board), normalizedPlayer(floor, normalizer.normalize(board)));
+	}
+
+	public FloorState(long[] boxes, short player) {
+		this.boxes = boxes;
+		this.player = player;
+		this.hash = Arrays.hashCode(boxes) * 31 + player;
+	}
+
+	private static short normalizedPlayer(FloorIndex floor, int packed) {
+		return (short) floor.index(PlayerNormalizer.getX(packed), PlayerNormalizer.getY(packed));
+	}
+
+	/**
+	 * Whether there is a box at floor index 'index'.
+	 * @param index
+	 * @return
+	 */
+	public boolean hasBox(int index) {
+		return (boxes[index >>> 6] & 1L << index) != 0;
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj) return true;
+		if (!(obj instanceof FloorState)) return false;
+		FloorState other = (FloorState) obj;
+		return hash == other.hash && player == other.player && Arrays.equals(boxes, other.boxes);
+	}
+
+	@Override
+	public String toString() {
+		return "FloorState[" + hashCode() + "]";
+	}
+
+}
@@ -2,6 +2,7 @@ package game.board.minimal;
 
 import game.board.compact.BoardCompact;
 import game.board.compact.CTile;
+import game.board.compact.PlayerNormalizer;
 import game.board.oop.Board;
 
 /**
@@ -52,9 +53,27 @@ public class StateMinimal {
 	 * @param board
 	 */
 	public StateMinimal(BoardCompact board) {
+		this(board, board.playerX, board.playerY);
+	}
+	
+	/**
+	 * Extract minimal state from 'board' with the player moved to its canonical position given by 'normalizer';
+	 * states with the same boxes and the player within the same reachable region are then equal.
+	 * @param board
+	 * @param normalizer
+	 */
+	public StateMinimal(BoardCompact board, PlayerNormalizer normalizer) {
+		this(board, normalizer.normalize(board));
+	}
+	
+	private StateMinimal(BoardCompact board, int packedPlayer) {
+		this(board, PlayerNormalizer.getX(packedPlayer), PlayerNormalizer.getY(packedPlayer));
+	}
+	
+	private StateMinimal(BoardCompact board, int playerX, int playerY) {
 		int elements = 1 + board.boxCount;
 		positions = new int[elements];
-		positions[0] = getPacked(board.playerX, board.playerY);
+		positions[0] = getPacked(playerX, playerY);
 		int index = 1;
 		for (int x = 0; x < board.width(); ++x) {
 			for (int y = 0; y < board.height(); ++y) {
@@ -0,0 +1,30 @@
+package search;
+
+import java.util.Arrays;
+
+// ActionSink that collects the actions into a reusable array; clear() it before every
+// expansion. Holds on to the references of the last expansion until they are overwritten.
+// Not thread-safe.
+public class ActionBuffer<A> implements ActionSink<A> {
+  private Object[] items = new Object[8];
+  private int size;
+
+  public void accept(A action) {
+    if (size == items.length)
+      items = Arrays.copyOf(items, size * 2);
+    items[size++] = action;
+  }
+
+  @SuppressWarnings("unchecked")
+  public A get(int index) {
+    return (A) items[index];
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+}
@@ -0,0 +1,7 @@
+package search;
+
+// Receives the actions of a state one at a time, see Problem.expand().
+@FunctionalInterface
+public interface ActionSink<A> {
+  void accept(A action);
+}
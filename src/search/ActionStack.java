@@ -0,0 +1,21 @@
+package search;
+
+import java.util.Arrays;
+
+// One ActionBuffer per depth for depth-first searches, so that expanding a node does not
+// overwrite the actions of the nodes above it. Not thread-safe.
+public class ActionStack<A> {
+  private ActionBuffer<?>[] buffers = new ActionBuffer<?>[16];
+
+  // Empty buffer for the node at 'depth'
+  @SuppressWarnings("unchecked")
+  public ActionBuffer<A> at(int depth) {
+    if (depth >= buffers.length)
+      buffers = Arrays.copyOf(buffers, Math.max(buffers.length * 2, depth + 1));
+    if (buffers[depth] == null)
+      buffers[depth] = new ActionBuffer<A>();
+    ActionBuffer<A> buffer = (ActionBuffer<A>) buffers[depth];
+    buffer.clear();
+    return buffer;
+  }
+}
@@ -0,0 +1,53 @@
+package search;
+
+import java.util.Arrays;
+
+// Priority queue for small non-negative integer priorities, with the ordering of
+// IntBucketQueue: poll() returns an item with the lowest f and, among those, the lowest h
+// (LIFO among equal (f, h)). The items are kept in a slot array and the buckets hold their
+// slot indices; slots freed by poll() are reused by later adds.
+public class BucketQueue<T> {
+  private final IntBucketQueue handles = new IntBucketQueue();
+  private Object[] items = new Object[64];
+  private int[] free = new int[64];  // stack of freed slots
+  private int freeCount = 0;
+  private int used = 0;              // slots ever handed out
+
+  public void add(T item, int f, int h) {
+    int slot = freeCount > 0 ? free[freeCount - 1] : used;
+    handles.add(slot, f, h);  // throws on negative priorities before the slot is taken
+    if (freeCount > 0) {
+      --freeCount;
+    } else {
+      if (used == items.length)
+        items = Arrays.copyOf(items, used * 2);
+      ++used;
+    }
+    items[slot] = item;
+  }
+
+  @SuppressWarnings("unchecked")
+  public T poll() {
+    int slot = handles.poll();
+    if (slot < 0)
+      return null;
+    T item = (T) items[slot];
+    items[slot] = null;
+    if (freeCount == free.length)
+      free = Arrays.copyOf(free, freeCount * 2);
+    free[freeCount++] = slot;
+    return item;
+  }
+
+  public int minF() {  // lowest f in the queue, Integer.MAX_VALUE if empty
+    return handles.minF();
+  }
+
+  public boolean isEmpty() {
+    return handles.isEmpty();
+  }
+
+  public int size() {
+    return handles.size();
+  }
+}
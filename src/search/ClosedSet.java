@@ -0,0 +1,14 @@
+package search;
+
+// Remembers the cheapest known path cost for every state reached by a search.
+public interface ClosedSet<S> {
+  double cost(S state);                  // best cost recorded for state, or +infinity if not seen yet
+  boolean improve(S state, double cost); // records cost if it is lower than the one known; returns whether it was recorded
+  int size();                            // number of distinct states recorded
+
+  // Whether improve() keeps a reference to the state; if not, a state may be recorded and
+  // then changed by the caller (e.g. the scratch state of an in-place expansion)
+  default boolean keepsStates() {
+    return true;
+  }
+}
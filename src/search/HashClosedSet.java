@@ -0,0 +1,26 @@
+package search;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// ClosedSet backed by a HashMap; relies on S.hashCode() and S.equals() and keeps the states alive.
+public class HashClosedSet<S> implements ClosedSet<S> {
+  private Map<S, Double> costs = new HashMap<>();
+
+  public double cost(S state) {
+    Double cost = costs.get(state);
+    return cost == null ? Double.POSITIVE_INFINITY : cost;
+  }
+
+  public boolean improve(S state, double cost) {
+    Double known = costs.get(state);
+    if (known != null && known <= cost)
+      return false;
+    costs.put(state, cost);
+    return true;
+  }
+
+  public int size() {
+    return costs.size();
+  }
+}
@@ -0,0 +1,82 @@
+package search;
+
+import java.util.Arrays;
+
+// Priority queue of int items (e.g. NodeArena indices) for small non-negative integer
+// priorities. Items are kept in buckets indexed by f and, inside each f-bucket, by h;
+// poll() returns an item with the lowest f and, among those, the lowest h (LIFO among
+// equal (f, h)), or -1 if the queue is empty. All operations are amortized O(1) as long
+// as the f values popped are (mostly) non-decreasing, as with a consistent heuristic.
+// BucketQueue keeps objects on top of it.
+public class IntBucketQueue {
+  private static class Stack {
+    int[] items = new int[8];
+    int size;
+  }
+
+  private Stack[][] buckets = new Stack[64][];  // [f][h]
+  private int[] counts = new int[64];           // items per f
+  private int[] minH = new int[64];             // lowest possibly non-empty h per f
+  private int minF = 0;                         // lowest possibly non-empty f
+  private int size = 0;
+
+  public void add(int item, int f, int h) {
+    if (f < 0 || h < 0)
+      throw new IllegalArgumentException("negative priority: f = " + f + ", h = " + h);
+    if (f >= buckets.length) {
+      int length = Math.max(buckets.length * 2, f + 1);
+      buckets = Arrays.copyOf(buckets, length);
+      counts = Arrays.copyOf(counts, length);
+      minH = Arrays.copyOf(minH, length);
+    }
+
+    Stack[] row = buckets[f];
+    if (row == null || h >= row.length) {
+      int length = Math.max(row == null ? 8 : row.length * 2, h + 1);
+      row = buckets[f] = row == null ? new Stack[length] : Arrays.copyOf(row, length);
+    }
+    Stack stack = row[h];
+    if (stack == null)
+      stack = row[h] = new Stack();
+    if (stack.size == stack.items.length)
+      stack.items = Arrays.copyOf(stack.items, stack.size * 2);
+    stack.items[stack.size++] = item;
+
+    if (counts[f]++ == 0 || h < minH[f])
+      minH[f] = h;
+    if (size++ == 0 || f < minF)
+      minF = f;
+  }
+
+  public int poll() {
+    if (size == 0)
+      return -1;
+    while (counts[minF] == 0)
+      ++minF;
+
+    Stack[] row = buckets[minF];
+    while (row[minH[minF]] == null || row[minH[minF]].size == 0)
+      ++minH[minF];
+
+    --counts[minF];
+    --size;
+    Stack stack = row[minH[minF]];
+    return stack.items[--stack.size];
+  }
+
+  public int minF() {  // lowest f in the queue, Integer.MAX_VALUE if empty
+    if (size == 0)
+      return Integer.MAX_VALUE;
+    while (counts[minF] == 0)
+      ++minF;
+    return minF;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public int size() {
+    return size;
+  }
+}
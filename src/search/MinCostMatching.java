@@ -0,0 +1,133 @@
+package search;
+
+import java.util.Arrays;
+
+// Minimum-cost assignment of rows to distinct columns (rows <= cols) of a non-negative integer
+// cost matrix: the Hungarian algorithm with potentials. The matrix is padded to a square one
+// with zero-cost rows, so every column is always matched. A Solution keeps its potentials, so
+// when the costs of a single row change (e.g. one box was pushed) withRow() repairs it by one
+// augmentation in O(cols^2) instead of solving from scratch in O(cols^3). Solutions are
+// immutable and share the rows that did not change, so they can be kept with search nodes.
+public class MinCostMatching {
+  private static final int INF = Integer.MAX_VALUE / 2;
+
+  public static final class Solution {
+    private final int[][] costs;  // [row][col], rows >= 'rows' are the zero padding
+    private final int rows;
+    private final int[] u, v;     // potentials, 1-based as in the algorithm
+    private final int[] match;    // row (1-based) assigned to each column (1-based)
+    public final int cost;
+
+    private Solution(int[][] costs, int rows, int[] u, int[] v, int[] match) {
+      this.costs = costs;
+      this.rows = rows;
+      this.u = u;
+      this.v = v;
+      this.match = match;
+      int total = 0;
+      for (int c = 1; c < match.length; ++c) {
+        if (match[c] <= rows)
+          total += costs[match[c] - 1][c - 1];
+      }
+      this.cost = total;
+    }
+
+    // Column assigned to 'row'.
+    public int column(int row) {
+      for (int c = 1; c < match.length; ++c) {
+        if (match[c] == row + 1)
+          return c - 1;
+      }
+      return -1;
+    }
+
+    // Cost of 'row' in this solution; the row sums of all rows give 'cost'.
+    public int rowCost(int row) {
+      return costs[row][column(row)];
+    }
+
+    // The optimal assignment after the costs of 'row' changed to 'rowCosts' (not copied).
+    public Solution withRow(int row, int[] rowCosts) {
+      int cols = match.length - 1;
+      int[][] newCosts = costs.clone();
+      newCosts[row] = rowCosts;
+      int[] newU = u.clone(), newV = v.clone(), newMatch = match.clone();
+
+      // free the row and make it dual feasible again, every other row stays tight
+      for (int c = 1; c <= cols; ++c) {
+        if (newMatch[c] == row + 1)
+          newMatch[c] = 0;
+      }
+      int minReduced = INF;
+      for (int c = 1; c <= cols; ++c)
+        minReduced = Math.min(minReduced, rowCosts[c - 1] - newV[c]);
+      newU[row + 1] = minReduced;
+
+      augment(newCosts, row + 1, newU, newV, newMatch);
+      return new Solution(newCosts, rows, newU, newV, newMatch);
+    }
+  }
+
+  // Optimal assignment for costs[row][col], 'cols' columns; costs.length must not exceed 'cols'.
+  public static Solution solve(int[][] costs, int cols) {
+    int rows = costs.length;
+    if (rows > cols)
+      throw new IllegalArgumentException("more rows than columns: " + rows + " > " + cols);
+
+    int[][] square = Arrays.copyOf(costs, cols);
+    for (int r = rows; r < cols; ++r)
+      square[r] = new int[cols];
+
+    int[] u = new int[cols + 1], v = new int[cols + 1], match = new int[cols + 1];
+    for (int r = 1; r <= cols; ++r)
+      augment(square, r, u, v, match);
+    return new Solution(square, rows, u, v, match);
+  }
+
+  // One phase: assigns the free (1-based) row 'r' along a shortest augmenting path.
+  private static void augment(int[][] costs, int r, int[] u, int[] v, int[] match) {
+    int cols = match.length - 1;
+    int[] minV = new int[cols + 1];
+    int[] way = new int[cols + 1];
+    boolean[] used = new boolean[cols + 1];
+    Arrays.fill(minV, INF);
+
+    match[0] = r;
+    int c0 = 0;
+    do {
+      used[c0] = true;
+      int r0 = match[c0], delta = INF, c1 = 0;
+      int[] row = costs[r0 - 1];
+      for (int c = 1; c <= cols; ++c) {
+        if (used[c])
+          continue;
+        int reduced = row[c - 1] - u[r0] - v[c];
+        if (reduced < minV[c]) {
+          minV[c] = reduced;
+          way[c] = c0;
+        }
+        if (minV[c] < delta) {
+          delta = minV[c];
+          c1 = c;
+        }
+      }
+      for (int c = 0; c <= cols; ++c) {
+        if (used[c]) {
+          u[match[c]] += delta;
+          v[c] -= delta;
+        } else {
+          minV[c] -= delta;
+        }
+      }
+      c0 = c1;
+    } while (match[c0] != 0);
+
+    // flip the augmenting path
+    do {
+      int c1 = way[c0];
+      match[c0] = match[c1];
+      c0 = c1;
+    } while (c0 != 0);
+    match[0] = 0;
+  }
+}
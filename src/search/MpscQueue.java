@@ -0,0 +1,45 @@
+package search;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+// Unbounded lock-free multi-producer single-consumer queue (Vyukov). offer() may be called
+// from any thread, poll() only from the single consumer thread.
+public class MpscQueue<T> {
+  private static class Node<T> {
+    T value;
+    volatile Node<T> next;
+
+    Node(T value) {
+      this.value = value;
+    }
+  }
+
+  private final AtomicReference<Node<T>> tail;
+  private Node<T> head;  // consumer-owned stub, its value is already consumed
+
+  public MpscQueue() {
+    head = new Node<T>(null);
+    tail = new AtomicReference<>(head);
+  }
+
+  public void offer(T value) {
+    Node<T> node = new Node<T>(value);
+    Node<T> prev = tail.getAndSet(node);
+    prev.next = node;  // until this write the consumer may briefly see the queue as empty
+  }
+
+  public T poll() {
+    Node<T> next = head.next;
+    if (next == null)
+      return null;
+    T value = next.value;
+    next.value = null;
+    head = next;
+    return value;
+  }
+
+  // Consumer-side emptiness check, with the same caveat as poll().
+  public boolean isEmpty() {
+    return head.next == null;
+  }
+}
@@ -0,0 +1,125 @@
+package search;
+
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.List;
+
+// Search tree nodes as columns of primitive arrays instead of one object per node. Nodes
+// are numbered from 0 in the order they are added; a node keeps its parent (-1 for the
+// root), its integer g and h, its action and its state as a StateCodec encoding. Columns
+// grow in chunks of CHUNK nodes, so growing never copies the nodes already stored.
+//
+// Given a table of all actions of the problem (e.g. the 8 moves and pushes), an action is
+// stored as its byte index into the table rather than as a reference. Not thread-safe.
+public class NodeArena<S, A> {
+  private static final int CHUNK_BITS = 14;
+  private static final int CHUNK = 1 << CHUNK_BITS;
+  private static final int MASK = CHUNK - 1;
+
+  private final StateCodec<S> codec;
+  private final int stride;          // ints per state
+  private final A[] actionTable;     // null: actions are kept as references
+
+  private int[][] parents = new int[0][];
+  private int[][] gs = new int[0][];
+  private int[][] hs = new int[0][];
+  private byte[][] actionIds = new byte[0][];
+  private Object[][] actions = new Object[0][];
+  private int[][] states = new int[0][];
+  private int size;
+
+  public NodeArena(StateCodec<S> codec) {
+    this(codec, null);
+  }
+
+  public NodeArena(StateCodec<S> codec, A[] actionTable) {
+    if (actionTable != null && actionTable.length > 128)
+      throw new IllegalArgumentException("too many actions for a byte: " + actionTable.length);
+    this.codec = codec;
+    this.stride = codec.length();
+    this.actionTable = actionTable;
+  }
+
+  // Adds a node and returns its index
+  public int add(S state, int parent, A action, int g, int h) {
+    int node = size;
+    int chunk = node >>> CHUNK_BITS, i = node & MASK;
+    if (chunk == parents.length)
+      grow();
+
+    parents[chunk][i] = parent;
+    gs[chunk][i] = g;
+    hs[chunk][i] = h;
+    if (actionTable != null)
+      actionIds[chunk][i] = action == null ? -1 : (byte) actionId(action);
+    else
+      actions[chunk][i] = action;
+    codec.encode(state, states[chunk], i * stride);
+    ++size;
+    return node;
+  }
+
+  private int actionId(A action) {
+    for (int id = 0; id < actionTable.length; ++id)
+      if (actionTable[id] == action)
+        return id;
+    throw new IllegalArgumentException("action not in the table: " + action);
+  }
+
+  private void grow() {
+    int chunks = parents.length + 1;
+    parents = Arrays.copyOf(parents, chunks);
+    gs = Arrays.copyOf(gs, chunks);
+    hs = Arrays.copyOf(hs, chunks);
+    states = Arrays.copyOf(states, chunks);
+    parents[chunks - 1] = new int[CHUNK];
+    gs[chunks - 1] = new int[CHUNK];
+    hs[chunks - 1] = new int[CHUNK];
+    states[chunks - 1] = new int[CHUNK * stride];
+    if (actionTable != null) {
+      actionIds = Arrays.copyOf(actionIds, chunks);
+      actionIds[chunks - 1] = new byte[CHUNK];
+    } else {
+      actions = Arrays.copyOf(actions, chunks);
+      actions[chunks - 1] = new Object[CHUNK];
+    }
+  }
+
+  public int parent(int node) {
+    return parents[node >>> CHUNK_BITS][node & MASK];
+  }
+
+  public int g(int node) {
+    return gs[node >>> CHUNK_BITS][node & MASK];
+  }
+
+  public int h(int node) {
+    return hs[node >>> CHUNK_BITS][node & MASK];
+  }
+
+  @SuppressWarnings("unchecked")
+  public A action(int node) {
+    int chunk = node >>> CHUNK_BITS, i = node & MASK;
+    if (actionTable == null)
+      return (A) actions[chunk][i];
+    byte id = actionIds[chunk][i];
+    return id < 0 ? null : actionTable[id];
+  }
+
+  // Decodes the state of 'node' into a new object
+  public S state(int node) {
+    return codec.decode(states[node >>> CHUNK_BITS], (node & MASK) * stride);
+  }
+
+  // Actions from the root to 'node'
+  public List<A> path(int node) {
+    LinkedList<A> path = new LinkedList<>();
+    for (; parent(node) >= 0; node = parent(node))
+      path.addFirst(action(node));
+    return path;
+  }
+
+  public int size() {
+    return size;
+  }
+}
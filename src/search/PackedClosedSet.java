@@ -0,0 +1,123 @@
+package search;
+
+// ClosedSet that does not keep any state objects alive. Every state is stored as its
+// 64-bit fingerprint, its StateEncoder encoding and its cost in parallel primitive
+// arrays; collisions are resolved by linear probing. Not thread-safe.
+public class PackedClosedSet<S> implements ClosedSet<S> {
+  private static final double MAX_LOAD = 0.7;
+
+  private final StateEncoder<S> encoder;
+  private final int stride;     // ints per encoded state
+  private final int[] scratch;  // encoding of the state being looked up
+
+  private long[] keys;          // fingerprints, 0 == empty slot
+  private int[] codes;          // encodings, 'stride' ints per slot
+  private double[] costs;       // g-cost column
+  private int mask;
+  private int size;
+
+  public PackedClosedSet(StateEncoder<S> encoder) {
+    this(encoder, 1 << 16);
+  }
+
+  public PackedClosedSet(StateEncoder<S> encoder, int initialCapacity) {
+    this.encoder = encoder;
+    this.stride = encoder.length();
+    this.scratch = new int[stride];
+    int capacity = Integer.highestOneBit(Math.max(initialCapacity, 16) - 1) << 1;
+    allocate(capacity);
+  }
+
+  private void allocate(int capacity) {
+    keys = new long[capacity];
+    codes = new int[capacity * stride];
+    costs = new double[capacity];
+    mask = capacity - 1;
+  }
+
+  // 0 marks an empty slot, so remap the (unlikely) zero fingerprint.
+  private static long key(long fingerprint) {
+    return fingerprint == 0 ? 0x9E3779B97F4A7C15L : fingerprint;
+  }
+
+  private static int slot(long key, int mask) {
+    return (int) (key ^ (key >>> 32)) & mask;
+  }
+
+  private boolean sameCode(int slot) {
+    int base = slot * stride;
+    for (int i = 0; i < stride; ++i)
+      if (codes[base + i] != scratch[i])
+        return false;
+    return true;
+  }
+
+  // Returns the slot holding 'state', or -(free slot)-1 if it is not present.
+  // On return, 'scratch' holds the encoding of 'state' if encoding was needed.
+  private int find(S state, long key) {
+    boolean encoded = false;
+    int i = slot(key, mask);
+    while (keys[i] != 0) {
+      if (keys[i] == key) {
+        if (!encoded) {
+          encoder.encode(state, scratch, 0);
+          encoded = true;
+        }
+        if (sameCode(i))
+          return i;
+      }
+      i = (i + 1) & mask;
+    }
+    if (!encoded)
+      encoder.encode(state, scratch, 0);
+    return -i - 1;
+  }
+
+  public double cost(S state) {
+    int i = find(state, key(encoder.fingerprint(state)));
+    return i >= 0 ? costs[i] : Double.POSITIVE_INFINITY;
+  }
+
+  public boolean improve(S state, double cost) {
+    long key = key(encoder.fingerprint(state));
+    int i = find(state, key);
+    if (i >= 0) {
+      if (costs[i] <= cost)
+        return false;
+      costs[i] = cost;
+      return true;
+    }
+    i = -i - 1;
+    keys[i] = key;
+    System.arraycopy(scratch, 0, codes, i * stride, stride);
+    costs[i] = cost;
+    if (++size > MAX_LOAD * keys.length)
+      grow();
+    return true;
+  }
+
+  private void grow() {
+    long[] oldKeys = keys;
+    int[] oldCodes = codes;
+    double[] oldCosts = costs;
+    allocate(oldKeys.length * 2);
+    for (int j = 0; j < oldKeys.length; ++j) {
+      if (oldKeys[j] == 0)
+        continue;
+      int i = slot(oldKeys[j], mask);
+      while (keys[i] != 0)
+        i = (i + 1) & mask;
+      keys[i] = oldKeys[j];
+      System.arraycopy(oldCodes, j * stride, codes, i * stride, stride);
+      costs[i] = oldCosts[j];
+    }
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean keepsStates() {
+    return false;
+  }
+}
@@ -9,4 +9,13 @@ public interface Problem<S, A> {
   S result(S state, A action);
   boolean isGoal(S state);
   double cost(S state, A action);        
+
+  // Feeds the actions of 'state' to 'sink' and returns how many there were; override it to
+  // enumerate the actions without allocating a list per expansion
+  default int expand(S state, ActionSink<A> sink) {
+    List<A> actions = actions(state);
+    for (A action : actions)
+      sink.accept(action);
+    return actions.size();
+  }
 }
@@ -0,0 +1,8 @@
+package search;
+
+// StateEncoder whose encodings can be turned back into states, for searches that keep
+// only the encodings (e.g. on disk). decode(encode(s)) must be a state equal to s as far
+// as the search is concerned, i.e. it has the same fingerprint, encoding and successors.
+public interface StateCodec<S> extends StateEncoder<S> {
+  S decode(int[] src, int offset);  // reads length() ints from src[offset..]
+}
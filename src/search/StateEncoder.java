@@ -0,0 +1,9 @@
+package search;
+
+// Turns a state into a 64-bit fingerprint plus a fixed-length int[] encoding;
+// two states are considered equal iff both their fingerprints and encodings are equal.
+public interface StateEncoder<S> {
+  int length();                                  // number of ints written by encode()
+  long fingerprint(S state);                     // well-mixed 64-bit hash of the state
+  void encode(S state, int[] dest, int offset);  // writes length() ints into dest[offset..]
+}
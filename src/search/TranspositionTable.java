@@ -0,0 +1,84 @@
+package search;
+
+import java.util.Arrays;
+
+// Fixed-size, direct-mapped transposition table for iterative-deepening searches, keyed by
+// a 64-bit state hash (e.g. BoardCompact.zobristKey()). Every entry remembers
+//   g         - the lowest path cost the state was reached with in 'iteration',
+//   bound     - an admissible lower bound on the remaining cost (improves over iterations),
+//   depth     - how much search budget was spent below the state (replacement priority),
+//   open      - whether the state is on the current search path.
+// A colliding store replaces an entry only if that entry is from an older iteration or
+// was searched less deep (depth-preferred), and never replaces an open entry.
+// Memory is allocated once in the constructor and never grows.
+public class TranspositionTable {
+  private final long[] keys;
+  private final int[] gs;
+  private final int[] bounds;
+  private final int[] depths;
+  private final int[] iterations;  // iteration << 1 | open
+  private final int mask;
+
+  public TranspositionTable(int capacity) {
+    int size = Integer.highestOneBit(Math.max(capacity, 2) - 1) << 1;
+    keys = new long[size];
+    gs = new int[size];
+    bounds = new int[size];
+    depths = new int[size];
+    iterations = new int[size];
+    mask = size - 1;
+  }
+
+  private int slot(long key) {
+    return (int) (key ^ (key >>> 32)) & mask;
+  }
+
+  // Slot holding 'key', or -1 if it is not in the table.
+  public int probe(long key) {
+    int i = slot(key);
+    return keys[i] == key && iterations[i] != 0 ? i : -1;
+  }
+
+  public int g(int slot)         { return gs[slot]; }
+  public int bound(int slot)     { return bounds[slot]; }
+  public int iteration(int slot) { return iterations[slot] >>> 1; }
+  public boolean isOpen(int slot) { return (iterations[slot] & 1) != 0; }
+
+  // Marks 'key' as open (on the current path) at cost 'g' in 'iteration' (must be > 0).
+  // Returns its slot, or -1 if the entry occupying the slot was kept instead.
+  public int open(long key, int g, int bound, int depth, int iteration) {
+    int i = slot(key);
+    if (keys[i] != key || iterations[i] == 0) {
+      boolean replace = iterations[i] == 0
+          || (!isOpen(i) && (iteration(i) != iteration || depths[i] <= depth));
+      if (!replace)
+        return -1;
+      keys[i] = key;
+      bounds[i] = bound;
+    } else if (isOpen(i)) {
+      return -1;
+    } else {
+      bounds[i] = Math.max(bounds[i], bound);
+    }
+    gs[i] = g;
+    depths[i] = depth;
+    iterations[i] = iteration << 1 | 1;
+    return i;
+  }
+
+  // Closes an entry returned by open(); 'bound' < 0 keeps the bound it had.
+  public void close(int slot, int bound) {
+    iterations[slot] &= ~1;
+    if (bound > bounds[slot])
+      bounds[slot] = bound;
+  }
+
+  // Forgets all entries, e.g. before searching a different level.
+  public void clear() {
+    Arrays.fill(iterations, 0);
+  }
+
+  public int capacity() {
+    return keys.length;
+  }
+}
@@ -0,0 +1,59 @@
+import java.nio.ByteBuffer;
+
+/**
+ * Generates the 3x3 and 3x4 {@link DeadlockPatterns} tables and bounds their linear probing: every stored key must be
+ * found within {@link #MAX_PROBE} slots of its home slot, and a lookup that misses must hit an empty slot as soon.
+ *
+ * In the default package, like {@link DeadlockPatterns}.
+ */
+public class DeadlockPatternsTest {
+
+	private static final int MAX_PROBE = 64;
+
+	private static final int[][] WINDOWS = { { 3, 3 }, { 3, 4 } };
+
+	public void test() {
+		for (int[] window : WINDOWS) {
+			long start = System.currentTimeMillis();
+			ByteBuffer buffer = DeadlockPatternGenerator.generate(window[0], window[1]);
+			long millis = System.currentTimeMillis() - start;
+			DeadlockPatterns patterns = new DeadlockPatterns(buffer);
+
+			int capacity = buffer.getInt(16);
+			int[] table = new int[capacity];
+			for (int slot = 0; slot < capacity; slot++) {
+				table[slot] = buffer.getInt(DeadlockPatterns.HEADER_BYTES + 4 * slot);
+			}
+
+			int keys = 0, longestHit = 0, longestMiss = 0;
+			for (int slot = 0; slot < capacity; slot++) {
+				int key = table[slot];
+				// a miss starting here scans up to the next empty slot
+				int miss = 0;
+				while (table[(slot + miss) & (capacity - 1)] != 0) miss++;
+				longestMiss = Math.max(longestMiss, miss);
+				if (key == 0) continue;
+
+				keys++;
+				int hit = (slot - DeadlockPatterns.slot(key, capacity)) & (capacity - 1);
+				longestHit = Math.max(longestHit, hit);
+				if (!patterns.contains(key >>> 16, key & 0xFFFF)) {
+					throw new RuntimeException("Stored key " + Integer.toHexString(key) + " not found");
+				}
+			}
+
+			System.out.printf("%dx%d: %d keys in %d slots, generated in %d ms, longest probe %d (hit) / %d (miss)\n",
+					window[0], window[1], keys, capacity, millis, longestHit, longestMiss);
+			if (longestHit > MAX_PROBE || longestMiss > MAX_PROBE) {
+				throw new RuntimeException(window[0] + "x" + window[1] + ": probe sequences longer than " + MAX_PROBE);
+			}
+		}
+	}
+
+	public static void main(String[] args) {
+		DeadlockPatternsTest test = new DeadlockPatternsTest();
+		test.test();
+		System.out.println("---// TEST OK //---");
+	}
+
+}
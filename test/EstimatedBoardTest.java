@@ -0,0 +1,82 @@
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import game.actions.EDirection;
+import game.actions.compact.CAction;
+import game.actions.compact.CMove;
+import game.actions.compact.CPush;
+import game.board.compact.BoardCompact;
+import game.board.oop.Board;
+
+/**
+ * Random walks over {@link EstimatedBoard}s: after every step, the incrementally repaired estimate must equal a full
+ * box/goal matching of the same board ({@link EstimatedBoard#estimate(BoardCompact, PushDistances)}). Steps are taken
+ * back, boards are cloned and copied into scratch boards along the way, as the searches do.
+ */
+public class EstimatedBoardTest {
+
+	private static final File[] LEVELS = {
+		new File("levels/Aymeric_du_Peloux_1_Minicosmos.sok"), new File("levels/Aymeric_du_Peloux_3_Nabokosmos.sok")
+	};
+
+	public void test() {
+		Random random = new Random(1);
+		int checks = 0;
+		for (File levels : LEVELS) {
+			for (int level = 1; level <= 40; ++level) {
+				BoardCompact start = Board.fromFileSok(levels, level).makeBoardCompact();
+				PushDistances distances = PushDistances.compute(start);
+				EstimatedBoard board = new EstimatedBoard(start, distances);
+				EstimatedBoard scratch = new EstimatedBoard(start, distances);
+				List<EstimatedBoard> kept = new ArrayList<EstimatedBoard>();
+
+				for (int step = 0; step < 5000; ++step) {
+					EDirection dir = EDirection.arrows()[random.nextInt(4)];
+					CAction action = random.nextBoolean() ? CPush.getAction(dir) : CMove.getAction(dir);
+					if (!action.isPossible(board)) continue;
+					action.perform(board);
+					if (random.nextInt(4) == 0) action.reverse(board);
+
+					switch (random.nextInt(8)) {
+					case 0:
+						// clones share the matching until one of them moves a box
+						kept.add(board.clone());
+						break;
+					case 1:
+						if (!kept.isEmpty()) board = kept.remove(random.nextInt(kept.size()));
+						break;
+					case 2:
+						scratch.copyFrom(board);
+						check(scratch, distances, level);
+						break;
+					}
+
+					check(board, distances, level);
+					++checks;
+				}
+				for (EstimatedBoard other : kept) {
+					check(other, distances, level);
+				}
+			}
+		}
+		System.out.println("Checked " + checks + " estimates");
+	}
+
+	private static void check(EstimatedBoard board, PushDistances distances, int level) {
+		int incremental = board.estimate();
+		int full = EstimatedBoard.estimate(board, distances);
+		if (incremental != full) {
+			board.debugPrint();
+			throw new RuntimeException("Level " + level + ": incremental estimate " + incremental + " != full matching " + full);
+		}
+	}
+
+	public static void main(String[] args) {
+		EstimatedBoardTest test = new EstimatedBoardTest();
+		test.test();
+		System.out.println("---// TEST OK //---");
+	}
+
+}
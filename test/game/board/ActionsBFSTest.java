@@ -0,0 +1,74 @@
+package game.board;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import agents.actions.ActionsBFS;
+import game.actions.EDirection;
+import game.actions.compact.CWalkPush;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.oop.Board;
+
+/**
+ * Random push sequences on {@link BoardCompact}: every walk {@link ActionsBFS} finds must replay over walkable tiles to
+ * the tile its push starts from, take {@link CWalkPush#getSteps()} steps and stay intact after the next search reuses
+ * the buffers.
+ */
+public class ActionsBFSTest {
+
+	private static final File[] LEVELS = {
+		new File("levels/Aymeric_du_Peloux_1_Minicosmos.sok"), new File("levels/Aymeric_du_Peloux_3_Nabokosmos.sok")
+	};
+
+	public void test() {
+		Random random = new Random(2);
+		ActionsBFS bfs = new ActionsBFS();
+		int checks = 0;
+		for (File levels : LEVELS) {
+			for (int level = 1; level <= 40; ++level) {
+				BoardCompact start = Board.fromFileSok(levels, level).makeBoardCompact();
+				BoardCompact board = start.clone();
+				for (int step = 0; step < 1000; ++step) {
+					List<CWalkPush> actions = bfs.findActions(board);
+					// overwrites the buffers the walks were found in
+					bfs.findActions(start);
+
+					for (CWalkPush action : actions) {
+						EDirection[] dirs = action.getDirections();
+						if (dirs.length != action.getSteps()) {
+							throw new RuntimeException("Level " + level + ": " + dirs.length + " directions, " + action.getSteps() + " steps");
+						}
+						int x = board.playerX, y = board.playerY;
+						for (int i = 0; i < dirs.length - 1; ++i) {
+							x += dirs[i].dX;
+							y += dirs[i].dY;
+							if (!CTile.isWalkable(board.tile(x, y))) {
+								throw new RuntimeException("Level " + level + ": walk blocked at " + x + "," + y);
+							}
+						}
+						if (x != action.getWalk().getX() || y != action.getWalk().getY() || dirs[dirs.length - 1] != action.getPushDirection()) {
+							throw new RuntimeException("Level " + level + ": walk to " + action.getWalk() + " ends at " + x + "," + y);
+						}
+						++checks;
+					}
+
+					if (actions.isEmpty() || board.isVictory() || random.nextInt(30) == 0) {
+						board = start.clone();
+					} else {
+						actions.get(random.nextInt(actions.size())).perform(board);
+					}
+				}
+			}
+		}
+		System.out.println("Checked " + checks + " walks");
+	}
+
+	public static void main(String[] args) {
+		ActionsBFSTest test = new ActionsBFSTest();
+		test.test();
+		System.out.println("---// TEST OK //---");
+	}
+
+}
@@ -0,0 +1,107 @@
+package game.board;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import agents.actions.ActionsBFS;
+import agents.actions.ActionsBits;
+import game.actions.EDirection;
+import game.actions.compact.CWalkPush;
+import game.board.bits.BoardBits;
+import game.board.compact.BoardCompact;
+import game.board.compact.CTile;
+import game.board.oop.Board;
+
+/**
+ * Random push sequences on {@link BoardCompact}: in every state {@link ActionsBits} must find the same pushes as
+ * {@link ActionsBFS}, with walks as short and valid even after the next call, and the {@link BoardBits} of the state must
+ * agree on {@link BoardBits#isVictory()} and {@link BoardBits#boxInPlaceCount()}.
+ */
+public class BoardBitsTest {
+
+	private static final File[] LEVELS = {
+		new File("levels/Aymeric_du_Peloux_1_Minicosmos.sok"), new File("levels/Aymeric_du_Peloux_3_Nabokosmos.sok")
+	};
+
+	public void test() {
+		Random random = new Random(1);
+		ActionsBFS bfs = new ActionsBFS();
+		int checks = 0;
+		for (File levels : LEVELS) {
+			for (int level = 1; level <= 40; ++level) {
+				BoardCompact start = Board.fromFileSok(levels, level).makeBoardCompact();
+				ActionsBits generator = new ActionsBits(start);
+				BoardCompact board = start.clone();
+				for (int step = 0; step < 1000; ++step) {
+					List<CWalkPush> expected = bfs.findActions(board);
+					List<CWalkPush> actions = generator.findActions(board);
+					// the walks must not depend on the buffers of the generator
+					generator.findActions(start);
+
+					Map<String, Integer> steps = new HashMap<String, Integer>();
+					for (CWalkPush action : expected) {
+						steps.put(key(action), action.getSteps());
+					}
+					if (steps.size() != actions.size()) {
+						throw new RuntimeException("Level " + level + ": " + actions.size() + " pushes found, " + steps.size() + " expected");
+					}
+					for (CWalkPush action : actions) {
+						Integer length = steps.get(key(action));
+						if (length == null) {
+							throw new RuntimeException("Level " + level + ": unexpected push " + key(action));
+						}
+						if (length != action.getSteps()) {
+							throw new RuntimeException("Level " + level + ": " + key(action) + " takes " + action.getSteps() + " steps, " + length + " expected");
+						}
+						replay(board, action);
+						++checks;
+					}
+
+					BoardBits bits = board.makeBoardBits();
+					if (bits.isVictory() != board.isVictory() || bits.boxInPlaceCount() != board.boxInPlaceCount) {
+						throw new RuntimeException("Level " + level + ": BoardBits differs on boxes in place");
+					}
+
+					if (actions.isEmpty() || board.isVictory() || random.nextInt(30) == 0) {
+						board = start.clone();
+					} else {
+						actions.get(random.nextInt(actions.size())).perform(board);
+					}
+				}
+			}
+		}
+		System.out.println("Checked " + checks + " pushes");
+	}
+
+	private static String key(CWalkPush action) {
+		return action.getWalk().getX() + "," + action.getWalk().getY() + "," + action.getPushDirection();
+	}
+
+	/**
+	 * Walks the directions of 'action' over 'board' without changing it.
+	 */
+	private static void replay(BoardCompact board, CWalkPush action) {
+		EDirection[] dirs = action.getDirections();
+		int x = board.playerX, y = board.playerY;
+		for (int i = 0; i < dirs.length - 1; ++i) {
+			x += dirs[i].dX;
+			y += dirs[i].dY;
+			if (!CTile.isWalkable(board.tile(x, y))) {
+				throw new RuntimeException("Walk of " + key(action) + " blocked at " + x + "," + y);
+			}
+		}
+		if (x != action.getWalk().getX() || y != action.getWalk().getY() || dirs[dirs.length - 1] != action.getPushDirection()) {
+			throw new RuntimeException("Walk of " + key(action) + " ends at " + x + "," + y);
+		}
+	}
+
+	public static void main(String[] args) {
+		BoardBitsTest test = new BoardBitsTest();
+		test.test();
+		System.out.println("---// TEST OK //---");
+	}
+
+}
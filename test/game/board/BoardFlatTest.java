@@ -0,0 +1,76 @@
+package game.board;
+
+import java.io.File;
+import java.util.Random;
+
+import game.actions.EDirection;
+import game.actions.compact.CAction;
+import game.actions.compact.CMove;
+import game.actions.compact.CPush;
+import game.actions.flat.FAction;
+import game.actions.flat.FMove;
+import game.actions.flat.FPush;
+import game.board.compact.BoardCompact;
+import game.board.flat.BoardFlat;
+import game.board.oop.Board;
+
+/**
+ * Random moves and pushes performed (and sometimes reversed) in lockstep on a {@link BoardCompact} and a
+ * {@link BoardFlat}: both must agree on what is possible and stay in the same state.
+ */
+public class BoardFlatTest {
+
+	private static final File[] LEVELS = {
+		new File("levels/Aymeric_du_Peloux_1_Minicosmos.sok"), new File("levels/Aymeric_du_Peloux_3_Nabokosmos.sok")
+	};
+
+	public void test() {
+		Random random = new Random(1);
+		int checks = 0;
+		for (File levels : LEVELS) {
+			for (int level = 1; level <= 40; ++level) {
+				BoardCompact compact = Board.fromFileSok(levels, level).makeBoardCompact();
+				BoardFlat flat = compact.makeBoardFlat();
+				for (int step = 0; step < 2500; ++step) {
+					EDirection dir = EDirection.arrows()[random.nextInt(4)];
+					boolean push = random.nextBoolean();
+					CAction compactAction = push ? CPush.getAction(dir) : CMove.getAction(dir);
+					FAction flatAction = push ? FPush.getAction(dir) : FMove.getAction(dir);
+
+					boolean possible = compactAction.isPossible(compact);
+					if (possible != flatAction.isPossible(flat)) {
+						throw new RuntimeException("Level " + level + ": " + compactAction + " possible " + possible + " on BoardCompact only");
+					}
+					if (possible) {
+						compactAction.perform(compact);
+						flatAction.perform(flat);
+						if (random.nextInt(4) == 0) {
+							compactAction.reverse(compact);
+							flatAction.reverse(flat);
+						}
+					}
+
+					BoardCompact back = flat.makeBoardCompact();
+					if (!back.equalsState(compact) || back.playerX != compact.playerX || back.playerY != compact.playerY
+							|| flat.boxInPlaceCount != compact.boxInPlaceCount || flat.isVictory() != compact.isVictory()) {
+						compact.debugPrint();
+						flat.debugPrint();
+						throw new RuntimeException("Level " + level + ": BoardFlat differs after " + compactAction);
+					}
+					if (!flat.equals(compact.makeBoardFlat()) || flat.hashCode() != compact.makeBoardFlat().hashCode()) {
+						throw new RuntimeException("Level " + level + ": BoardFlat equals/hashCode differ after " + compactAction);
+					}
+					++checks;
+				}
+			}
+		}
+		System.out.println("Checked " + checks + " steps");
+	}
+
+	public static void main(String[] args) {
+		BoardFlatTest test = new BoardFlatTest();
+		test.test();
+		System.out.println("---// TEST OK //---");
+	}
+
+}
@@ -0,0 +1,75 @@
+package search;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Runs a BucketQueue, an IntBucketQueue and a plain list in lockstep on the same random
+// stream of adds and polls: both queues must return the same items, in the order of the
+// list (lowest f, then lowest h, then the latest added), and agree on size() and minF().
+public class BucketQueueTest {
+  private static final int OPERATIONS = 200_000;
+
+  public void test() {
+    Random random = new Random(5);
+    BucketQueue<Integer> objects = new BucketQueue<>();
+    IntBucketQueue ints = new IntBucketQueue();
+    List<int[]> expected = new ArrayList<>();  // {item, f, h}
+    int next = 0, polls = 0;
+
+    // adds and polls at random, then polls until the queues are empty
+    for (int op = 0; op < OPERATIONS || !expected.isEmpty(); ++op) {
+      // mostly non-decreasing f, as in A*, with some drops below the current minimum
+      if (op < OPERATIONS && (expected.isEmpty() || random.nextBoolean())) {
+        int base = expected.isEmpty() ? 0 : ints.minF();
+        int f = random.nextInt(10) == 0 ? random.nextInt(base + 1) : base + random.nextInt(4);
+        int h = random.nextInt(f + 1);
+        objects.add(next, f, h);
+        ints.add(next, f, h);
+        expected.add(new int[] { next, f, h });
+        ++next;
+      } else {
+        int best = 0;
+        for (int i = 1; i < expected.size(); ++i) {
+          int[] e = expected.get(i), b = expected.get(best);
+          if (e[1] < b[1] || e[1] == b[1] && e[2] <= b[2])
+            best = i;
+        }
+        int item = expected.remove(best)[0];
+        Integer object = objects.poll();
+        int handle = ints.poll();
+        if (object == null || object != item || handle != item)
+          throw new RuntimeException("poll " + polls + ": " + object + " / " + handle + ", expected " + item);
+        ++polls;
+      }
+
+      int minF = Integer.MAX_VALUE;
+      for (int[] e : expected)
+        minF = Math.min(minF, e[1]);
+      if (objects.size() != expected.size() || ints.size() != expected.size()
+          || objects.isEmpty() != expected.isEmpty() || ints.isEmpty() != expected.isEmpty())
+        throw new RuntimeException("operation " + op + ": sizes differ");
+      if (objects.minF() != minF || ints.minF() != minF)
+        throw new RuntimeException("operation " + op + ": minF " + objects.minF() + " / " + ints.minF() + ", expected " + minF);
+    }
+
+    if (objects.poll() != null || ints.poll() != -1)
+      throw new RuntimeException("empty queues must poll null / -1");
+
+    try {
+      objects.add(0, -1, 0);
+      throw new RuntimeException("negative f accepted");
+    } catch (IllegalArgumentException e) {
+    }
+    if (!objects.isEmpty())
+      throw new RuntimeException("rejected add changed the queue");
+
+    System.out.println("Checked " + polls + " polls of " + next + " items");
+  }
+
+  public static void main(String[] args) {
+    BucketQueueTest test = new BucketQueueTest();
+    test.test();
+    System.out.println("---// TEST OK //---");
+  }
+}